@@ -0,0 +1,106 @@
+#!/usr/bin/env bash
+#
+# Fast-start deployment of the application: an AOT processed build run from an extracted layout together
+# with an application class-data-sharing (CDS) archive generated in a training run.
+#
+#   scripts/fast-start.sh build               builds the AOT processed jar and extracts it to target/fast-start
+#   scripts/fast-start.sh train               generates the CDS archive in a training run
+#   scripts/fast-start.sh run [args...]       starts the application in the fast-start mode
+#   scripts/fast-start.sh benchmark [runs]    compares startup of the plain jar and the fast-start mode
+#
+# The training run and the benchmark start the application with the "prod" profile, so the database
+# configured through SPRING_DATASOURCE_URL, SPRING_DATASOURCE_USERNAME and SPRING_DATASOURCE_PASSWORD
+# must be reachable. Its schema is created or migrated by Flyway on the first start.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+MAIN_CLASS=cz.cvut.fel.pm2.budgettracker.BudgetManagerApplication
+APP_DIR=target/fast-start
+ARCHIVE="$APP_DIR/application.jsa"
+PORT=${PORT:-8080}
+RESULTS=target/startup-benchmark.csv
+
+classpath() {
+    # CDS requires the very same class path in the training run and at runtime, hence the sorted listing.
+    local cp="$APP_DIR/application.jar"
+    local lib
+    for lib in $(ls "$APP_DIR"/lib/*.jar | sort); do
+        cp="$cp:$lib"
+    done
+    echo "$cp"
+}
+
+build() {
+    # AOT processing compiles pre-generated proxies into target/classes, a clean build keeps them current.
+    mvn -B -q -Pfast-start clean package -DskipTests
+    rm -rf "$APP_DIR"
+    mkdir -p "$APP_DIR/exploded"
+    unzip -q target/budgettracker-*.jar -d "$APP_DIR/exploded"
+    # CDS cannot archive classes loaded from directories or nested jars, so the application classes are
+    # repackaged into a plain jar next to the libraries.
+    jar --create --file "$APP_DIR/application.jar" -C "$APP_DIR/exploded/BOOT-INF/classes" .
+    mv "$APP_DIR/exploded/BOOT-INF/lib" "$APP_DIR/lib"
+    rm -rf "$APP_DIR/exploded"
+}
+
+train() {
+    [ -f "$APP_DIR/application.jar" ] || build
+    rm -f "$ARCHIVE"
+    java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dspring.aot.enabled=true -cp "$(classpath)" "$MAIN_CLASS" \
+        --spring.profiles.active=prod --budgettracker.startup.exit-on-ready=true
+}
+
+run() {
+    [ -f "$ARCHIVE" ] || train
+    exec java -XX:SharedArchiveFile="$ARCHIVE" -Dspring.aot.enabled=true -cp "$(classpath)" "$MAIN_CLASS" \
+        --spring.profiles.active=prod "$@"
+}
+
+# Starts the given command, waits for the first answered request and records the startup metrics.
+measure() {
+    local mode=$1
+    shift
+    local log="$APP_DIR/benchmark-$mode.log"
+    local start
+    start=$(date +%s%N)
+    "$@" --spring.profiles.active=prod --server.port="$PORT" > "$log" 2>&1 &
+    local pid=$!
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/" || true)" != "000" ]; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited during startup, see $log" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    local wall_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+    # Give the first request a moment to be reported by StartupMetrics.
+    sleep 0.5
+    kill "$pid"
+    wait "$pid" || true
+    local ready_ms first_ms heap
+    ready_ms=$(grep -o 'startup.ready-ms=[0-9]*' "$log" | cut -d= -f2)
+    first_ms=$(grep -o 'startup.first-request-ms=[0-9]*' "$log" | cut -d= -f2)
+    heap=$(grep -o 'startup.first-request-heap-used-bytes=[0-9]*' "$log" | cut -d= -f2)
+    echo "$(date -u +%Y-%m-%dT%H:%M:%SZ),$mode,$wall_ms,$ready_ms,$first_ms,$heap" | tee -a "$RESULTS"
+}
+
+benchmark() {
+    local runs=${1:-5}
+    [ -f "$ARCHIVE" ] || train
+    [ -f "$RESULTS" ] || echo "timestamp,mode,wall_time_to_first_request_ms,jvm_ready_ms,jvm_first_request_ms,first_request_heap_used_bytes" > "$RESULTS"
+    local i
+    for i in $(seq "$runs"); do
+        measure plain java -jar target/budgettracker-*.jar
+        measure fast-start java -XX:SharedArchiveFile="$ARCHIVE" -Dspring.aot.enabled=true -cp "$(classpath)" "$MAIN_CLASS"
+    done
+}
+
+case "${1:-}" in
+    build) build ;;
+    train) train ;;
+    run) shift; run "$@" ;;
+    benchmark) shift; benchmark "$@" ;;
+    *) echo "Usage: $0 build|train|run|benchmark [runs]" >&2; exit 2 ;;
+esac
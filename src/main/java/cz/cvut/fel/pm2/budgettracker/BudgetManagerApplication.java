@@ -3,10 +3,12 @@ package cz.cvut.fel.pm2.budgettracker;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(
         exclude={SecurityAutoConfiguration.class}
 )
+@EnableScheduling
 public class BudgetManagerApplication {
 
 
@@ -0,0 +1,50 @@
+package cz.cvut.fel.pm2.budgettracker.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in microseconds with logarithmic buckets, each 1 % wider than the previous
+ * one, so every reported percentile is within 1 % of the exact value.
+ */
+final class LatencyHistogram {
+
+    private static final double GROWTH = Math.log(1.01);
+
+    // Covers latencies up to roughly an hour.
+    private static final int BUCKETS = 2300;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long micros) {
+        int bucket = micros <= 1 ? 0 : (int) Math.ceil(Math.log(micros) / GROWTH);
+        counts.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @param quantile the quantile between 0 and 1.
+     * @return the upper bound of the bucket containing the quantile in microseconds, or 0 if nothing was recorded.
+     */
+    long percentile(double quantile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(rank, 1)) {
+                return Math.round(Math.exp(i * GROWTH));
+            }
+        }
+        return Math.round(Math.exp((BUCKETS - 1) * GROWTH));
+    }
+}
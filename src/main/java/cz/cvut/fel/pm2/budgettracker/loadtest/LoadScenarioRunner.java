@@ -0,0 +1,218 @@
+package cz.cvut.fel.pm2.budgettracker.loadtest;
+
+import cz.cvut.fel.pm2.budgettracker.model.Category;
+import cz.cvut.fel.pm2.budgettracker.model.Transaction;
+import cz.cvut.fel.pm2.budgettracker.model.Wallet;
+import cz.cvut.fel.pm2.budgettracker.repository.CategoryDao;
+import cz.cvut.fel.pm2.budgettracker.repository.GoalDao;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionDao;
+import cz.cvut.fel.pm2.budgettracker.service.IntervalReportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Replays a mixed read/write workload through the DAOs at a target rate and reports the throughput and
+ * latency percentiles per operation. Operations are started on a fixed schedule and their latency is
+ * measured from the scheduled start, so a slow database shows up in the latencies instead of silently
+ * lowering the offered load. The sequence of operations depends only on the seed.
+ */
+@Component
+@Profile("loadtest")
+public class LoadScenarioRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadScenarioRunner.class);
+
+    public static final String INSERT_TRANSACTION = "insert-transaction";
+    public static final String INTERVAL_REPORT = "interval-report";
+    public static final String GOAL_LIST = "goal-list";
+    public static final String CATEGORY_LOOKUP = "category-lookup";
+    public static final String DAY_TRANSACTIONS = "day-transactions";
+
+    private final LoadTestProperties properties;
+    private final SyntheticDataGenerator generator;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionDao transactionDao;
+    private final GoalDao goalDao;
+    private final CategoryDao categoryDao;
+    private final IntervalReportService reportService;
+
+    public LoadScenarioRunner(LoadTestProperties properties, SyntheticDataGenerator generator,
+                              TransactionTemplate transactionTemplate,
+                              TransactionDao transactionDao, GoalDao goalDao, CategoryDao categoryDao,
+                              IntervalReportService reportService) {
+        this.properties = properties;
+        this.generator = generator;
+        this.transactionTemplate = transactionTemplate;
+        this.transactionDao = transactionDao;
+        this.goalDao = goalDao;
+        this.categoryDao = categoryDao;
+        this.reportService = reportService;
+    }
+
+    /**
+     * Runs the scenario against the given data set and logs the report.
+     * @param dataset the data set the operations choose their wallets and categories from.
+     * @return the measured statistics per operation name.
+     * @throws InterruptedException if interrupted while waiting for the scenario to finish.
+     */
+    public Map<String, OperationStats> run(SyntheticDataset dataset) throws InterruptedException {
+        Map<String, Consumer<SplittableRandom>> operations = operations(dataset);
+        // Sorted, so the same mix always maps the random numbers to the same operations.
+        SortedMap<String, Integer> mix = new TreeMap<>();
+        properties.mix().forEach((name, weight) -> {
+            if (!operations.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown load test operation '" + name + "', known are "
+                        + operations.keySet());
+            }
+            if (weight > 0) {
+                mix.put(name, weight);
+            }
+        });
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("Load test mix has no operation with a positive weight");
+        }
+
+        Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+        Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+        mix.keySet().forEach(name -> {
+            histograms.put(name, new LatencyHistogram());
+            errors.put(name, new AtomicLong());
+        });
+
+        long intervalNanos = Math.max(1, Math.round(1e9 / properties.rate()));
+        long warmupOperations = Math.round(properties.warmupSeconds() * properties.rate());
+        long totalOperations = warmupOperations + Math.round(properties.durationSeconds() * properties.rate());
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measuredStart = start + warmupOperations * intervalNanos;
+        AtomicLong measuredEnd = new AtomicLong(measuredStart);
+        AtomicLong next = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(properties.threads());
+        for (int t = 0; t < properties.threads(); t++) {
+            executor.execute(() -> {
+                long index;
+                while ((index = next.getAndIncrement()) < totalOperations) {
+                    long scheduled = start + index * intervalNanos;
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    SplittableRandom random = new SplittableRandom(properties.seed() + index * 0x9E3779B97F4A7C15L);
+                    String name = pick(mix, totalWeight, random);
+                    boolean failed = false;
+                    try {
+                        operations.get(name).accept(random);
+                    } catch (RuntimeException ex) {
+                        failed = true;
+                        LOG.debug("Load test operation {} failed", name, ex);
+                    }
+                    long finished = System.nanoTime();
+                    if (index >= warmupOperations) {
+                        if (failed) {
+                            errors.get(name).incrementAndGet();
+                        }
+                        histograms.get(name).record(TimeUnit.NANOSECONDS.toMicros(finished - scheduled));
+                        measuredEnd.accumulateAndGet(finished, Math::max);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            LOG.info("Load test still running, {} of {} operations started", next.get(), totalOperations);
+        }
+
+        double seconds = Math.max(1, measuredEnd.get() - measuredStart) / 1e9;
+        Map<String, OperationStats> stats = new TreeMap<>();
+        mix.keySet().forEach(name -> {
+            LatencyHistogram histogram = histograms.get(name);
+            long count = histogram.count();
+            stats.put(name, new OperationStats(count, errors.get(name).get(), count / seconds,
+                    histogram.percentile(0.5), histogram.percentile(0.99), histogram.percentile(0.999)));
+        });
+        LOG.info("Load test report, target {} ops/s on {} threads, {} s measured:\n{}", properties.rate(),
+                properties.threads(), String.format(Locale.ROOT, "%.1f", seconds), format(stats));
+        return stats;
+    }
+
+    private Map<String, Consumer<SplittableRandom>> operations(SyntheticDataset dataset) {
+        ZipfSampler walletSampler = new ZipfSampler(dataset.wallets().size(), properties.walletSkew());
+        List<Category> categories = dataset.categories();
+        long historySeconds = ChronoUnit.SECONDS.between(dataset.startDate().atStartOfDay(),
+                dataset.endDate().plusDays(1).atStartOfDay());
+
+        Map<String, Consumer<SplittableRandom>> operations = new HashMap<>();
+        operations.put(INSERT_TRANSACTION, random -> {
+            Wallet wallet = dataset.wallets().get(walletSampler.sample(random));
+            LocalDateTime date = dataset.endDate().atStartOfDay().plusSeconds(random.nextInt(24 * 60 * 60));
+            Transaction transaction = generator.newTransaction(wallet, categories, date, random);
+            transactionTemplate.executeWithoutResult(status -> transactionDao.persist(transaction));
+        });
+        operations.put(INTERVAL_REPORT, random -> {
+            Wallet wallet = dataset.wallets().get(walletSampler.sample(random));
+            if (random.nextBoolean()) {
+                reportService.currentMonth(wallet, dataset.endDate());
+            } else {
+                reportService.lastDays(wallet, 30, dataset.endDate());
+            }
+        });
+        operations.put(GOAL_LIST, random ->
+                goalDao.getAllGoals(dataset.wallets().get(walletSampler.sample(random)).getWalletId()));
+        operations.put(CATEGORY_LOOKUP, random ->
+                categoryDao.getCategoryByName(categories.get(random.nextInt(categories.size())).getName()));
+        operations.put(DAY_TRANSACTIONS, random -> {
+            LocalDateTime from = dataset.startDate().atStartOfDay().plusSeconds(random.nextLong(historySeconds));
+            transactionDao.getTransactionsWithinInterval(from, from.plusMinutes(1));
+        });
+        return operations;
+    }
+
+    private static String pick(SortedMap<String, Integer> mix, int totalWeight, SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Load test mix changed while running");
+    }
+
+    private static String format(Map<String, OperationStats> stats) {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%-20s %10s %8s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p999 ms"));
+        stats.forEach((name, operation) -> report.append(String.format(Locale.ROOT,
+                "%-20s %10d %8d %10.1f %10.3f %10.3f %10.3f%n", name, operation.count(), operation.errors(),
+                operation.throughput(), operation.p50Micros() / 1000.0, operation.p99Micros() / 1000.0,
+                operation.p999Micros() / 1000.0)));
+        return report.toString();
+    }
+
+    /**
+     * Measured statistics of one operation of the scenario.
+     * @param count the number of measured executions, failed ones included.
+     * @param errors the number of failed executions.
+     * @param throughput the number of executions per second.
+     * @param p50Micros the median latency in microseconds.
+     * @param p99Micros the 99th percentile latency in microseconds.
+     * @param p999Micros the 99.9th percentile latency in microseconds.
+     */
+    public record OperationStats(long count, long errors, double throughput, long p50Micros, long p99Micros,
+                                 long p999Micros) {
+    }
+}
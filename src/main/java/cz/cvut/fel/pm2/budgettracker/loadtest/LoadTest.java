@@ -0,0 +1,35 @@
+package cz.cvut.fel.pm2.budgettracker.loadtest;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entry point of the load test, active with the {@code loadtest} profile: generates the synthetic data set
+ * and runs the load scenario and the report benchmark against it. See "Load Testing" in README.md.
+ */
+@Component
+@Profile("loadtest")
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTest implements ApplicationRunner {
+
+    private final SyntheticDataGenerator generator;
+    private final LoadScenarioRunner scenarioRunner;
+    private final ReportConcurrencyBenchmark reportBenchmark;
+
+    public LoadTest(SyntheticDataGenerator generator, LoadScenarioRunner scenarioRunner,
+                    ReportConcurrencyBenchmark reportBenchmark) {
+        this.generator = generator;
+        this.scenarioRunner = scenarioRunner;
+        this.reportBenchmark = reportBenchmark;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        SyntheticDataset dataset = generator.generate();
+        scenarioRunner.run(dataset);
+        reportBenchmark.run(dataset);
+    }
+}
@@ -0,0 +1,64 @@
+package cz.cvut.fel.pm2.budgettracker.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Configuration of the synthetic data set and of the load scenario, bound from {@code budgettracker.loadtest}.
+ * @param seed the seed of all random choices, the same seed always generates the same data set and workload.
+ * @param users the number of generated users, each of them owns one wallet.
+ * @param transactions the number of generated transactions.
+ * @param months the number of months the generated transactions span.
+ * @param endDate the last day of the generated history, fixed so the same seed generates the same dates.
+ * @param walletSkew the exponent of the Zipf distribution choosing wallets, higher values make hot wallets hotter.
+ * @param batchSize the number of entities persisted in one database transaction.
+ * @param rate the target number of operations per second of the scenario.
+ * @param threads the number of threads executing the scenario.
+ * @param warmupSeconds the length of the warm-up, whose latencies are not reported.
+ * @param durationSeconds the length of the measured part of the scenario.
+ * @param mix the relative weights of the scenario operations by name.
+ * @param reportJobs the number of asynchronous reports submitted at once by the report benchmark, 0 skips it.
+ * @param reportPlatformThreads the number of request threads of the report benchmark.
+ * @param reportPermitsPerTenant the maximal number of reports of one wallet using the database at once.
+ * @param reportMaxConcurrent the maximal number of all reports using the database at once, at least the number
+ *                            of request threads, so the benchmark compares the threads and not this cap.
+ */
+@ConfigurationProperties("budgettracker.loadtest")
+public record LoadTestProperties(@DefaultValue("42") long seed,
+                                 @DefaultValue("1000") int users,
+                                 @DefaultValue("100000") int transactions,
+                                 @DefaultValue("24") int months,
+                                 @DefaultValue("2024-12-31") LocalDate endDate,
+                                 @DefaultValue("1.1") double walletSkew,
+                                 @DefaultValue("1000") int batchSize,
+                                 @DefaultValue("100") double rate,
+                                 @DefaultValue("16") int threads,
+                                 @DefaultValue("10") int warmupSeconds,
+                                 @DefaultValue("60") int durationSeconds,
+                                 Map<String, Integer> mix,
+                                 @DefaultValue("0") int reportJobs,
+                                 @DefaultValue("200") int reportPlatformThreads,
+                                 @DefaultValue("2") int reportPermitsPerTenant,
+                                 @DefaultValue("200") int reportMaxConcurrent) {
+
+    public LoadTestProperties {
+        if (users <= 0 || transactions < 0 || months <= 0 || batchSize <= 0 || rate <= 0 || threads <= 0
+                || reportJobs < 0 || reportPlatformThreads <= 0 || reportPermitsPerTenant <= 0
+                || reportMaxConcurrent <= 0) {
+            throw new IllegalArgumentException("Load test sizes, rate and threads must be positive");
+        }
+        if (reportMaxConcurrent < reportPlatformThreads) {
+            throw new IllegalArgumentException("Report cap " + reportMaxConcurrent
+                    + " must not be below the number of request threads " + reportPlatformThreads);
+        }
+        if (mix == null || mix.isEmpty()) {
+            mix = Map.of(LoadScenarioRunner.INSERT_TRANSACTION, 20,
+                    LoadScenarioRunner.INTERVAL_REPORT, 50,
+                    LoadScenarioRunner.GOAL_LIST, 15,
+                    LoadScenarioRunner.CATEGORY_LOOKUP, 15);
+        }
+    }
+}
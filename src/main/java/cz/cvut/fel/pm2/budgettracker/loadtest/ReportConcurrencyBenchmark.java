@@ -0,0 +1,171 @@
+package cz.cvut.fel.pm2.budgettracker.loadtest;
+
+import cz.cvut.fel.pm2.budgettracker.model.Category;
+import cz.cvut.fel.pm2.budgettracker.model.Wallet;
+import cz.cvut.fel.pm2.budgettracker.report.*;
+import cz.cvut.fel.pm2.budgettracker.repository.CategoryDao;
+import cz.cvut.fel.pm2.budgettracker.repository.GoalDao;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionDao;
+import cz.cvut.fel.pm2.budgettracker.service.IntervalReportCache;
+import cz.cvut.fel.pm2.budgettracker.service.IntervalReportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Submits the same burst of asynchronous reports twice while short operations (category lookups and goal
+ * lists) keep arriving at the scenario rate on a bounded pool of request threads, and compares the report
+ * throughput and the latency of the short operations.
+ * In the platform run the reports occupy the request threads while they wait for permits and the database,
+ * as reports computed by request handlers do; in the virtual run they run on virtual threads and leave the
+ * request threads to the short operations. The global report cap is at least the size of the request pool,
+ * so it does not hide the difference. The report cache is cleared before each run, so both runs read the
+ * same data from the database.
+ */
+@Component
+@Profile("loadtest")
+public class ReportConcurrencyBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportConcurrencyBenchmark.class);
+
+    private final LoadTestProperties properties;
+    private final TransactionDao transactionDao;
+    private final GoalDao goalDao;
+    private final CategoryDao categoryDao;
+    private final IntervalReportService reportService;
+    private final IntervalReportCache reportCache;
+
+    public ReportConcurrencyBenchmark(LoadTestProperties properties, TransactionDao transactionDao,
+                                      GoalDao goalDao, CategoryDao categoryDao,
+                                      IntervalReportService reportService, IntervalReportCache reportCache) {
+        this.properties = properties;
+        this.transactionDao = transactionDao;
+        this.goalDao = goalDao;
+        this.categoryDao = categoryDao;
+        this.reportService = reportService;
+        this.reportCache = reportCache;
+    }
+
+    /**
+     * Runs the benchmark against the given data set and logs the comparison.
+     * @param dataset the data set the reports are computed for.
+     * @throws InterruptedException if interrupted while waiting for the reports.
+     */
+    public void run(SyntheticDataset dataset) throws InterruptedException {
+        if (properties.reportJobs() == 0) {
+            return;
+        }
+        List<ReportRequest<?>> requests = requests(dataset);
+        String platform = measure("platform", requests, dataset, true);
+        String virtual = measure("virtual", requests, dataset, false);
+        LOG.info("Report benchmark, {} reports submitted at once, {} request threads, short operations at {} ops/s:"
+                        + "\n{}{}{}", requests.size(), properties.reportPlatformThreads(), properties.rate(),
+                String.format(Locale.ROOT, "%-10s %10s %8s %10s %10s %10s %10s %8s %10s %10s %10s%n", "reports on",
+                        "reports", "errors", "reports/s", "p50 ms", "p99 ms", "short ops", "errors", "p50 ms",
+                        "p99 ms", "p999 ms"), platform, virtual);
+    }
+
+    private String measure(String name, List<ReportRequest<?>> requests, SyntheticDataset dataset,
+                           boolean onRequestThreads) throws InterruptedException {
+        reportCache.clear();
+        ExecutorService requestThreads = Executors.newFixedThreadPool(properties.reportPlatformThreads());
+        ExecutorService reportThreads = onRequestThreads ? requestThreads
+                : Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("report-", 0).factory());
+        ReportJobService jobs = new ReportJobService(transactionDao, reportService,
+                properties.reportPermitsPerTenant(), properties.reportMaxConcurrent(), reportThreads);
+        LatencyHistogram reportLatencies = new LatencyHistogram();
+        LatencyHistogram shortLatencies = new LatencyHistogram();
+        AtomicLong reportErrors = new AtomicLong();
+        AtomicLong shortErrors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(requests.size());
+        long start = System.nanoTime();
+        long end;
+        try {
+            for (ReportRequest<?> request : requests) {
+                long submitted = System.nanoTime();
+                jobs.submit(request).asFuture().whenComplete((report, failure) -> {
+                    reportLatencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - submitted));
+                    if (failure != null) {
+                        reportErrors.incrementAndGet();
+                        LOG.debug("Benchmark report {} failed", request, failure);
+                    }
+                    done.countDown();
+                });
+            }
+            // Short operations are started on a fixed schedule until the last report completes, their latency
+            // is measured from the scheduled start, so the time spent queued for a request thread counts.
+            SplittableRandom random = new SplittableRandom(properties.seed());
+            long intervalNanos = Math.max(1, Math.round(1e9 / properties.rate()));
+            long scheduled = start;
+            List<Future<?>> shortOperations = new ArrayList<>();
+            while (!done.await(Math.max(0, scheduled - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                long operationScheduled = scheduled;
+                SplittableRandom operationRandom = random.split();
+                shortOperations.add(requestThreads.submit(() -> {
+                    try {
+                        shortOperation(dataset, operationRandom);
+                    } catch (RuntimeException ex) {
+                        shortErrors.incrementAndGet();
+                        LOG.debug("Benchmark short operation failed", ex);
+                    }
+                    shortLatencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - operationScheduled));
+                }));
+                scheduled += intervalNanos;
+            }
+            end = System.nanoTime();
+            for (Future<?> operation : shortOperations) {
+                try {
+                    operation.get();
+                } catch (ExecutionException ex) {
+                    shortErrors.incrementAndGet();
+                }
+            }
+        } finally {
+            jobs.shutdown();
+            requestThreads.shutdownNow();
+        }
+        double seconds = Duration.ofNanos(end - start).toMillis() / 1000.0;
+        return String.format(Locale.ROOT, "%-10s %10d %8d %10.1f %10.3f %10.3f %10d %8d %10.3f %10.3f %10.3f%n",
+                name, reportLatencies.count(), reportErrors.get(),
+                reportLatencies.count() / Math.max(seconds, 0.001), reportLatencies.percentile(0.5) / 1000.0,
+                reportLatencies.percentile(0.99) / 1000.0, shortLatencies.count(), shortErrors.get(),
+                shortLatencies.percentile(0.5) / 1000.0, shortLatencies.percentile(0.99) / 1000.0,
+                shortLatencies.percentile(0.999) / 1000.0);
+    }
+
+    private void shortOperation(SyntheticDataset dataset, SplittableRandom random) {
+        if (random.nextBoolean()) {
+            List<Category> categories = dataset.categories();
+            categoryDao.getCategoryByName(categories.get(random.nextInt(categories.size())).getName());
+        } else {
+            goalDao.getAllGoals(dataset.wallets().get(random.nextInt(dataset.wallets().size())).getWalletId());
+        }
+    }
+
+    private List<ReportRequest<?>> requests(SyntheticDataset dataset) {
+        SplittableRandom random = new SplittableRandom(properties.seed());
+        ZipfSampler walletSampler = new ZipfSampler(dataset.wallets().size(), properties.walletSkew());
+        int firstYear = dataset.startDate().getYear();
+        int years = dataset.endDate().getYear() - firstYear + 1;
+        List<ReportRequest<?>> requests = new ArrayList<>(properties.reportJobs());
+        for (int i = 0; i < properties.reportJobs(); i++) {
+            Wallet wallet = dataset.wallets().get(walletSampler.sample(random));
+            if (random.nextBoolean()) {
+                requests.add(new YearInReviewRequest(wallet.getWalletId(), firstYear + random.nextInt(years)));
+            } else {
+                requests.add(new CategoryBreakdownRequest(wallet.getWalletId(),
+                        dataset.endDate().minusDays(random.nextInt(365))));
+            }
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,210 @@
+package cz.cvut.fel.pm2.budgettracker.loadtest;
+
+import cz.cvut.fel.pm2.budgettracker.model.*;
+import cz.cvut.fel.pm2.budgettracker.repository.CategoryDao;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionDao;
+import cz.cvut.fel.pm2.budgettracker.repository.WalletDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Generates a deterministic data set of users, wallets, categories, goals and transactions. The same seed
+ * always produces the same data. Transactions are generated in chronological order with more and larger
+ * expenses around Christmas and in summer, more on weekends, and spread over the wallets by a Zipf
+ * distribution, so a few hot wallets own most of them. Entities are persisted in batches through the DAOs.
+ */
+@Component
+@Profile("loadtest")
+public class SyntheticDataGenerator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    // Names of the categories with the median and spread of the log-normal distribution of their expenses.
+    private static final String[] CATEGORY_NAMES = {"Groceries", "Rent", "Utilities", "Transport", "Restaurants",
+            "Entertainment", "Health", "Clothing", "Travel", "Gifts", "Education", "Electronics", "Insurance",
+            "Subscriptions", "Salary"};
+    private static final double[] MEDIAN_AMOUNTS = {45, 900, 120, 25, 35, 30, 60, 70, 400, 50, 150, 250, 80, 15,
+            2500};
+    private static final double[] AMOUNT_SPREADS = {0.6, 0.1, 0.3, 0.7, 0.5, 0.8, 0.9, 0.6, 0.8, 0.9, 0.5, 0.9,
+            0.2, 0.3, 0.2};
+    private static final int INCOME_CATEGORY = CATEGORY_NAMES.length - 1;
+
+    // Relative number and size of expenses per month, January first.
+    private static final double[] MONTH_SEASONALITY = {0.8, 0.85, 0.95, 1.0, 1.0, 1.1, 1.25, 1.2, 0.95, 1.0, 1.15,
+            1.6};
+
+    private static final double INCOME_SHARE = 0.06;
+
+    // Users are not meant to log in, a constant placeholder avoids hashing a password per user.
+    private static final String PASSWORD_PLACEHOLDER = "{noop}load-test";
+
+    private final LoadTestProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryDao categoryDao;
+    private final WalletDao walletDao;
+    private final TransactionDao transactionDao;
+
+    public SyntheticDataGenerator(LoadTestProperties properties, TransactionTemplate transactionTemplate,
+                                  CategoryDao categoryDao, WalletDao walletDao, TransactionDao transactionDao) {
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.categoryDao = categoryDao;
+        this.walletDao = walletDao;
+        this.transactionDao = transactionDao;
+    }
+
+    /**
+     * Generates and persists the data set.
+     * @return the generated entities.
+     */
+    public SyntheticDataset generate() {
+        SplittableRandom random = new SplittableRandom(properties.seed());
+        LocalDate endDate = properties.endDate();
+        LocalDate startDate = endDate.minusMonths(properties.months()).plusDays(1);
+
+        List<Category> categories = new ArrayList<>();
+        for (String name : CATEGORY_NAMES) {
+            categories.add(new Category(null, name));
+        }
+        transactionTemplate.executeWithoutResult(status -> categoryDao.persist(categories));
+
+        List<User> users = new ArrayList<>();
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < properties.users(); i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@loadtest.example");
+            user.setUsername("user" + i);
+            user.setPassword(PASSWORD_PLACEHOLDER);
+            users.add(user);
+            wallets.add(newWallet(user, i, random));
+        }
+        persistInBatches(wallets, walletDao::persist);
+
+        long generated = generateTransactions(wallets, categories, startDate, endDate, random);
+        LOG.info("Generated {} users, {} categories and {} transactions between {} and {}",
+                users.size(), categories.size(), generated, startDate, endDate);
+        return new SyntheticDataset(users, wallets, categories, startDate, endDate);
+    }
+
+    private Wallet newWallet(User user, int index, SplittableRandom random) {
+        Wallet wallet = new Wallet();
+        wallet.setName("Wallet of user" + index);
+        wallet.setClient(user);
+        wallet.setCurrency(Currency.values()[random.nextInt(Currency.values().length)]);
+        wallet.setAmount(money(random.nextDouble(100, 20_000)));
+        wallet.setBudgetLimit(money(random.nextDouble(500, 5_000)));
+        int goals = random.nextInt(4);
+        for (int g = 0; g < goals; g++) {
+            Goal goal = new Goal();
+            goal.setGoal("Goal " + (g + 1) + " of user" + index);
+            goal.setMoneyGoal(money(random.nextDouble(200, 50_000)));
+            wallet.addGoal(goal);
+        }
+        return wallet;
+    }
+
+    private long generateTransactions(List<Wallet> wallets, List<Category> categories, LocalDate startDate,
+                                      LocalDate endDate, SplittableRandom random) {
+        int days = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        double[] dayWeights = new double[days];
+        double totalWeight = 0;
+        for (int d = 0; d < days; d++) {
+            dayWeights[d] = dayWeight(startDate.plusDays(d));
+            totalWeight += dayWeights[d];
+        }
+
+        ZipfSampler walletSampler = new ZipfSampler(wallets.size(), properties.walletSkew());
+        List<Transaction> batch = new ArrayList<>(properties.batchSize());
+        long generated = 0;
+        double carry = 0;
+        for (int d = 0; d < days && generated < properties.transactions(); d++) {
+            LocalDate day = startDate.plusDays(d);
+            // Carrying the fractional part keeps the total exactly at the requested number of transactions.
+            double expected = properties.transactions() * dayWeights[d] / totalWeight + carry;
+            int count = (int) Math.min(Math.floor(expected), properties.transactions() - generated);
+            carry = expected - Math.floor(expected);
+            if (d == days - 1) {
+                count = (int) (properties.transactions() - generated);
+            }
+            int[] seconds = new int[count];
+            for (int i = 0; i < count; i++) {
+                seconds[i] = random.nextInt(24 * 60 * 60);
+            }
+            Arrays.sort(seconds);
+            for (int second : seconds) {
+                Wallet wallet = wallets.get(walletSampler.sample(random));
+                batch.add(newTransaction(wallet, categories, day.atStartOfDay().plusSeconds(second), random));
+                if (batch.size() == properties.batchSize()) {
+                    persistTransactions(batch);
+                    batch = new ArrayList<>(properties.batchSize());
+                }
+            }
+            generated += count;
+        }
+        persistTransactions(batch);
+        return generated;
+    }
+
+    /**
+     * Creates a transaction with the same distribution of types, categories and amounts as the generated ones.
+     * @param wallet the wallet of the transaction.
+     * @param categories the generated categories.
+     * @param date the date of the transaction.
+     * @param random the source of randomness.
+     * @return the new, not yet persisted transaction.
+     */
+    Transaction newTransaction(Wallet wallet, List<Category> categories, LocalDateTime date, SplittableRandom random) {
+        boolean income = random.nextDouble() < INCOME_SHARE;
+        int category = income ? INCOME_CATEGORY : random.nextInt(INCOME_CATEGORY);
+        double amount = MEDIAN_AMOUNTS[category] * Math.exp(AMOUNT_SPREADS[category] * random.nextGaussian());
+        if (!income) {
+            amount *= MONTH_SEASONALITY[date.getMonthValue() - 1];
+        }
+        Transaction transaction = new Transaction();
+        transaction.setDescription(CATEGORY_NAMES[category] + " #" + random.nextInt(1_000_000));
+        transaction.setDate(date);
+        transaction.setMoney(money(amount));
+        transaction.setTypeTransaction(income ? TypeTransaction.INCOME : TypeTransaction.EXPENSE);
+        transaction.setCategory(categories.get(category));
+        transaction.setWallet(wallet);
+        return transaction;
+    }
+
+    private void persistTransactions(List<Transaction> batch) {
+        if (!batch.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> transactionDao.persist(batch));
+        }
+    }
+
+    private <T> void persistInBatches(List<T> entities, Consumer<List<T>> persist) {
+        for (int from = 0; from < entities.size(); from += properties.batchSize()) {
+            List<T> batch = entities.subList(from, Math.min(from + properties.batchSize(), entities.size()));
+            transactionTemplate.executeWithoutResult(status -> persist.accept(batch));
+        }
+    }
+
+    private static double dayWeight(LocalDate day) {
+        double weekday = day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY
+                ? 1.3 : 1.0;
+        return MONTH_SEASONALITY[day.getMonthValue() - 1] * weekday;
+    }
+
+    private static BigDecimal money(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,20 @@
+package cz.cvut.fel.pm2.budgettracker.loadtest;
+
+import cz.cvut.fel.pm2.budgettracker.model.Category;
+import cz.cvut.fel.pm2.budgettracker.model.User;
+import cz.cvut.fel.pm2.budgettracker.model.Wallet;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The entities created by {@link SyntheticDataGenerator}, detached after their transactions committed.
+ * @param users the generated users.
+ * @param wallets the generated wallets, ordered from the hottest to the coldest.
+ * @param categories the generated categories.
+ * @param startDate the first day of the generated history.
+ * @param endDate the last day of the generated history.
+ */
+public record SyntheticDataset(List<User> users, List<Wallet> wallets, List<Category> categories,
+                               LocalDate startDate, LocalDate endDate) {
+}
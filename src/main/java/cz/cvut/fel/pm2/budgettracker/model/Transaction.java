@@ -58,7 +58,7 @@ public class Transaction implements Serializable {
     @JoinColumn(name = "wallet", referencedColumnName = "wallet_id")
     private Wallet wallet;
 
-    @OneToOne
+    @ManyToOne
     @JoinColumn(name = "category", referencedColumnName = "name")
     @Setter(AccessLevel.NONE)
     private Category category;
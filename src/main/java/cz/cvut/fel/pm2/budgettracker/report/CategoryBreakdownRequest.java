@@ -0,0 +1,19 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+import cz.cvut.fel.pm2.budgettracker.service.IntervalSummary;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Requests the summary of the whole history of a wallet up to a day, broken down by category.
+ * @param walletId the id of the wallet.
+ * @param asOf the last day of the summarized history.
+ */
+public record CategoryBreakdownRequest(Long walletId, LocalDate asOf) implements ReportRequest<IntervalSummary> {
+
+    public CategoryBreakdownRequest {
+        Objects.requireNonNull(walletId);
+        Objects.requireNonNull(asOf);
+    }
+}
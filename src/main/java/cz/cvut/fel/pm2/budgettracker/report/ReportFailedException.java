@@ -0,0 +1,11 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+/**
+ * Thrown when an asynchronous report could not be computed.
+ */
+public class ReportFailedException extends RuntimeException {
+
+    public ReportFailedException(ReportRequest<?> request, Throwable cause) {
+        super("Report " + request + " failed", cause);
+    }
+}
@@ -0,0 +1,94 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The handle of a submitted report returned by {@link ReportJobService#submit(ReportRequest)}. The result can
+ * be polled with {@link #getStatus()} and {@link #poll()}, awaited, or consumed as it completes through
+ * {@link #asFuture()}. Handles of identical requests share one job.
+ * @param <T> the type of the computed report.
+ */
+public final class ReportHandle<T> {
+
+    private final ReportJob<T> job;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    ReportHandle(ReportJob<T> job) {
+        this.job = job;
+    }
+
+    /**
+     * @return the id of the job, the same for all handles sharing the job.
+     */
+    public UUID getJobId() {
+        return job.getId();
+    }
+
+    public ReportRequest<T> getRequest() {
+        return job.getRequest();
+    }
+
+    public ReportStatus getStatus() {
+        return cancelled.get() ? ReportStatus.CANCELLED : job.getStatus();
+    }
+
+    /**
+     * @return the report if it has been computed, empty otherwise.
+     * @throws ReportFailedException if the computation failed.
+     */
+    public Optional<T> poll() {
+        CompletableFuture<T> result = job.getResult();
+        if (cancelled.get() || !result.isDone() || result.isCancelled()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(result.join());
+        } catch (RuntimeException ex) {
+            throw new ReportFailedException(job.getRequest(), ex.getCause() == null ? ex : ex.getCause());
+        }
+    }
+
+    /**
+     * Waits for the report.
+     * @param timeout the longest time to wait.
+     * @return the report.
+     * @throws TimeoutException if the report has not been computed in time.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws ReportFailedException if the computation failed.
+     * @throws CancellationException if the report has been cancelled.
+     */
+    public T await(Duration timeout) throws TimeoutException, InterruptedException {
+        try {
+            return asFuture().get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            throw new ReportFailedException(job.getRequest(), ex.getCause());
+        }
+    }
+
+    /**
+     * @return a future completed with the report, completing it does not affect the job.
+     */
+    public CompletableFuture<T> asFuture() {
+        if (cancelled.get()) {
+            return CompletableFuture.failedFuture(new CancellationException("Report " + job.getRequest() + " cancelled"));
+        }
+        return job.getResult().copy();
+    }
+
+    /**
+     * Gives up the interest in the report. The job itself is cancelled once all its handles are cancelled.
+     */
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            job.unsubscribe();
+        }
+    }
+}
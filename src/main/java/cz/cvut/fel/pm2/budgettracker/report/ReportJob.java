@@ -0,0 +1,120 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A report computation shared by all handles of identical requests. The job is cancelled once every handle
+ * subscribed to it has been cancelled. Only a job still waiting for its permits is interrupted; a running job
+ * must not be, as interrupting a thread blocked in socket I/O closes its database connection, so it stops at
+ * the next check of {@link #isCancelled()} instead and its result is dropped.
+ * @param <T> the type of the computed report.
+ */
+final class ReportJob<T> {
+
+    private final UUID id = UUID.randomUUID();
+    private final ReportRequest<T> request;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final AtomicReference<ReportStatus> status = new AtomicReference<>(ReportStatus.QUEUED);
+    private final Consumer<ReportJob<T>> onCancelled;
+
+    // Guarded by this.
+    private int subscribers;
+    private boolean cancelled;
+    private boolean interruptible;
+    private Future<?> execution;
+
+    /**
+     * @param request the report to compute.
+     * @param onCancelled called once the job has been cancelled, also when its execution never started.
+     */
+    ReportJob(ReportRequest<T> request, Consumer<ReportJob<T>> onCancelled) {
+        this.request = request;
+        this.onCancelled = onCancelled;
+    }
+
+    /**
+     * Adds a subscriber to the job.
+     * @return false if the job has already been cancelled and cannot be shared anymore.
+     */
+    synchronized boolean subscribe() {
+        if (cancelled) {
+            return false;
+        }
+        subscribers++;
+        return true;
+    }
+
+    /**
+     * Removes a subscriber and cancels the job if it was the last one and the job has not finished yet.
+     */
+    void unsubscribe() {
+        Future<?> toCancel;
+        boolean interrupt;
+        synchronized (this) {
+            if (--subscribers > 0 || result.isDone()) {
+                return;
+            }
+            cancelled = true;
+            // A job that has not started yet never will, so only a wait for permits is interrupted.
+            interruptible = status.compareAndSet(ReportStatus.QUEUED, ReportStatus.CANCELLED);
+            interrupt = interruptible;
+            toCancel = execution;
+        }
+        status.set(ReportStatus.CANCELLED);
+        result.cancel(false);
+        if (toCancel != null) {
+            toCancel.cancel(interrupt);
+        }
+        onCancelled.accept(this);
+    }
+
+    synchronized void setExecution(Future<?> execution) {
+        this.execution = execution;
+        if (cancelled) {
+            execution.cancel(interruptible);
+        }
+    }
+
+    boolean start() {
+        return status.compareAndSet(ReportStatus.QUEUED, ReportStatus.RUNNING);
+    }
+
+    /**
+     * @return true if the job has been cancelled, so a running computation should stop.
+     */
+    boolean isCancelled() {
+        return result.isCancelled();
+    }
+
+    void complete(T report) {
+        if (result.complete(report)) {
+            status.set(ReportStatus.COMPLETED);
+        }
+    }
+
+    void fail(Throwable cause) {
+        if (result.completeExceptionally(cause)) {
+            status.set(ReportStatus.FAILED);
+        }
+    }
+
+    UUID getId() {
+        return id;
+    }
+
+    ReportRequest<T> getRequest() {
+        return request;
+    }
+
+    ReportStatus getStatus() {
+        return status.get();
+    }
+
+    CompletableFuture<T> getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,213 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionDao;
+import cz.cvut.fel.pm2.budgettracker.service.IntervalReportKey;
+import cz.cvut.fel.pm2.budgettracker.service.IntervalReportService;
+import cz.cvut.fel.pm2.budgettracker.service.IntervalSummary;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Computes heavy reports asynchronously, so request threads do not wait for the database. Every job runs on
+ * its own virtual thread, which is cheap to block, while a semaphore per tenant caps how many of its reports
+ * use the database at the same time and a global semaphore keeps all reports within the connection pool.
+ * The semaphore of a tenant only exists while jobs of the tenant are in flight.
+ * Identical requests submitted while a job is in flight share the job. A cancelled job that is already running
+ * finishes the query in progress and then stops, so its database connection is not interrupted.
+ */
+@Service
+public class ReportJobService {
+
+    private final TransactionDao transactionDao;
+    private final IntervalReportService reportService;
+    private final ExecutorService executor;
+    private final int permitsPerTenant;
+    private final Semaphore globalPermits;
+
+    private final Map<Long, TenantPermits> tenantPermits = new ConcurrentHashMap<>();
+    private final Map<ReportRequest<?>, ReportJob<?>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReportJobService(TransactionDao transactionDao, IntervalReportService reportService,
+                            @Value("${budgettracker.reports.async.permits-per-tenant:2}") int permitsPerTenant,
+                            @Value("${budgettracker.reports.async.max-concurrent:8}") int maxConcurrent) {
+        this(transactionDao, reportService, permitsPerTenant, maxConcurrent,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("report-", 0).factory()));
+    }
+
+    /**
+     * Creates the service running the jobs on the given executor instead of virtual threads.
+     * @param transactionDao the DAO the reports are computed from.
+     * @param reportService the service computing the interval summaries the reports consist of.
+     * @param permitsPerTenant the maximal number of reports of one tenant using the database at the same time.
+     * @param maxConcurrent the maximal number of all reports using the database at the same time.
+     * @param executor the executor running the jobs, shut down together with the service.
+     */
+    public ReportJobService(TransactionDao transactionDao, IntervalReportService reportService, int permitsPerTenant,
+                            int maxConcurrent, ExecutorService executor) {
+        if (permitsPerTenant <= 0 || maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Report permits must be positive, got " + permitsPerTenant
+                    + " per tenant and " + maxConcurrent + " in total");
+        }
+        this.transactionDao = transactionDao;
+        this.reportService = reportService;
+        this.permitsPerTenant = permitsPerTenant;
+        // Fair permits are handed out in arrival order, so a report is never overtaken indefinitely.
+        this.globalPermits = new Semaphore(maxConcurrent, true);
+        this.executor = executor;
+    }
+
+    /**
+     * Submits the report, or joins the identical report already in flight.
+     * @param request the report to compute.
+     * @return the handle of the report.
+     * @param <T> the type of the computed report.
+     */
+    public <T> ReportHandle<T> submit(ReportRequest<T> request) {
+        Objects.requireNonNull(request);
+        while (true) {
+            // A job cancelled before its execution started never reaches execute(), so it leaves on its own.
+            ReportJob<T> created = new ReportJob<>(request, cancelled -> inFlight.remove(request, cancelled));
+            @SuppressWarnings("unchecked")
+            ReportJob<T> job = (ReportJob<T>) inFlight.computeIfAbsent(request, r -> created);
+            if (job.subscribe()) {
+                if (job == created) {
+                    try {
+                        job.setExecution(executor.submit(() -> execute(job)));
+                    } catch (RejectedExecutionException ex) {
+                        inFlight.remove(request, job);
+                        job.fail(ex);
+                    }
+                }
+                return new ReportHandle<>(job);
+            }
+            // Every handle of the job has been cancelled in the meantime, start over with a fresh job.
+            inFlight.remove(request, job);
+        }
+    }
+
+    /**
+     * @return the number of distinct jobs queued or running.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> void execute(ReportJob<T> job) {
+        ReportRequest<T> request = job.getRequest();
+        Semaphore permits = joinTenant(request.walletId());
+        try {
+            permits.acquire();
+            try {
+                globalPermits.acquire();
+                try {
+                    if (job.start()) {
+                        job.complete(compute(job));
+                    }
+                } finally {
+                    globalPermits.release();
+                }
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException ex) {
+            // Cancelled, the job has already been marked as such.
+            Thread.currentThread().interrupt();
+        } catch (CancellationException ex) {
+            // Stopped between two queries, the job has already been marked as cancelled.
+        } catch (RuntimeException ex) {
+            job.fail(ex);
+        } finally {
+            leaveTenant(request.walletId());
+            inFlight.remove(request, job);
+        }
+    }
+
+    /**
+     * Registers a job of the tenant, creating the semaphore of the tenant if no other job of it is in flight.
+     * @return the semaphore of the tenant.
+     */
+    private Semaphore joinTenant(Long walletId) {
+        return tenantPermits.compute(walletId, (id, tenant) -> {
+            TenantPermits joined = tenant == null ? new TenantPermits(new Semaphore(permitsPerTenant, true)) : tenant;
+            joined.jobs++;
+            return joined;
+        }).permits;
+    }
+
+    /**
+     * Unregisters a job of the tenant after it has released its permit. The semaphore of the tenant is dropped
+     * with its last job, when all its permits are back.
+     */
+    private void leaveTenant(Long walletId) {
+        tenantPermits.computeIfPresent(walletId, (id, tenant) -> --tenant.jobs == 0 ? null : tenant);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T compute(ReportJob<T> job) {
+        return (T) switch (job.getRequest()) {
+            case YearInReviewRequest yearInReview -> yearInReview(yearInReview, job);
+            case CategoryBreakdownRequest breakdown -> categoryBreakdown(breakdown, job);
+        };
+    }
+
+    // Called before every query, so a cancelled job stops without interrupting a query in progress.
+    private static void checkCancelled(ReportJob<?> job) {
+        if (job.isCancelled()) {
+            throw new CancellationException("Report " + job.getId() + " has been cancelled");
+        }
+    }
+
+    private YearInReview yearInReview(YearInReviewRequest request, ReportJob<?> job) {
+        List<IntervalSummary> months = new ArrayList<>();
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expense = BigDecimal.ZERO;
+        Map<String, BigDecimal> expensesByCategory = new HashMap<>();
+        for (int month = 1; month <= 12; month++) {
+            YearMonth yearMonth = YearMonth.of(request.year(), month);
+            checkCancelled(job);
+            IntervalSummary summary = reportService.summarize(new IntervalReportKey(request.walletId(),
+                    yearMonth.atDay(1), yearMonth.atEndOfMonth(), null, null));
+            months.add(summary);
+            income = income.add(summary.income());
+            expense = expense.add(summary.expense());
+            summary.expensesByCategory().forEach((category, sum) -> expensesByCategory.merge(category, sum,
+                    BigDecimal::add));
+        }
+        return new YearInReview(request.walletId(), request.year(), months, income, expense, expensesByCategory);
+    }
+
+    private IntervalSummary categoryBreakdown(CategoryBreakdownRequest request, ReportJob<?> job) {
+        LocalDateTime first = transactionDao.findFirstTransactionDate(request.walletId());
+        LocalDate from = first == null || first.toLocalDate().isAfter(request.asOf())
+                ? request.asOf() : first.toLocalDate();
+        checkCancelled(job);
+        return reportService.summarize(new IntervalReportKey(request.walletId(), from, request.asOf(), null, null));
+    }
+
+    private static final class TenantPermits {
+
+        private final Semaphore permits;
+
+        // Number of jobs of the tenant waiting for or holding a permit, only changed within the map operations.
+        private int jobs;
+
+        private TenantPermits(Semaphore permits) {
+            this.permits = permits;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+/**
+ * A report that can be computed asynchronously by {@link ReportJobService}. Requests are compared by value,
+ * so identical requests submitted while the first one is still running share a single job.
+ * @param <T> the type of the computed report.
+ */
+public sealed interface ReportRequest<T> permits YearInReviewRequest, CategoryBreakdownRequest {
+
+    /**
+     * @return the id of the wallet the report is computed for, which also identifies the tenant.
+     */
+    Long walletId();
+}
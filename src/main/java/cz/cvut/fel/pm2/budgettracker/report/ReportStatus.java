@@ -0,0 +1,12 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+/**
+ * Lifecycle of an asynchronous report job. A queued job waits for a free database permit of its tenant.
+ */
+public enum ReportStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
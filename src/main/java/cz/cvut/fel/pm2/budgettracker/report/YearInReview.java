@@ -0,0 +1,25 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+import cz.cvut.fel.pm2.budgettracker.service.IntervalSummary;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of one calendar year of a wallet.
+ * @param walletId the id of the wallet.
+ * @param year the calendar year.
+ * @param months the summaries of the twelve months, January first.
+ * @param income the sum of incomes of the year.
+ * @param expense the sum of expenses of the year.
+ * @param expensesByCategory the sum of expenses of the year per category name.
+ */
+public record YearInReview(Long walletId, int year, List<IntervalSummary> months, BigDecimal income,
+                           BigDecimal expense, Map<String, BigDecimal> expensesByCategory) {
+
+    public YearInReview {
+        months = List.copyOf(months);
+        expensesByCategory = Map.copyOf(expensesByCategory);
+    }
+}
@@ -0,0 +1,15 @@
+package cz.cvut.fel.pm2.budgettracker.report;
+
+import java.util.Objects;
+
+/**
+ * Requests the monthly summaries of one calendar year of a wallet.
+ * @param walletId the id of the wallet.
+ * @param year the calendar year.
+ */
+public record YearInReviewRequest(Long walletId, int year) implements ReportRequest<YearInReview> {
+
+    public YearInReviewRequest {
+        Objects.requireNonNull(walletId);
+    }
+}
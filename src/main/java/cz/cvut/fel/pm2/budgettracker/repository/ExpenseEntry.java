@@ -0,0 +1,16 @@
+package cz.cvut.fel.pm2.budgettracker.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of an expense transaction, used to replay history into the spending statistics
+ * without loading the transaction entities and their wallets.
+ * @param transId the id of the transaction.
+ * @param walletId the id of the wallet the transaction belongs to.
+ * @param category the name of the category of the transaction, or null if it has none.
+ * @param money the amount of the transaction.
+ * @param date the date of the transaction.
+ */
+public record ExpenseEntry(Long transId, Long walletId, String category, BigDecimal money, LocalDateTime date) {
+}
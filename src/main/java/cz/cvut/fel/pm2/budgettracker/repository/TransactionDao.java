@@ -3,23 +3,55 @@ package cz.cvut.fel.pm2.budgettracker.repository;
 
 import cz.cvut.fel.pm2.budgettracker.model.Category;
 import cz.cvut.fel.pm2.budgettracker.model.Transaction;
+import cz.cvut.fel.pm2.budgettracker.model.TypeTransaction;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionWrittenEvent.Kind;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionWrittenEvent.Placement;
+import jakarta.persistence.FlushModeType;
 import jakarta.persistence.TypedQuery;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Repository
 public class TransactionDao extends BaseDao<Transaction>{
+
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Constructs a new BaseDao instance with the given type parameter.
      *
      * the class type of the entity managed by this BaseDao.
+     * @param eventPublisher publishes a {@link TransactionWrittenEvent} for every write.
      */
-    public TransactionDao() {
+    public TransactionDao(ApplicationEventPublisher eventPublisher) {
         super(Transaction.class);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void persist(Transaction entity) {
+        super.persist(entity);
+        publish(Kind.PERSISTED, entity, new ArrayList<>());
+    }
+
+    @Override
+    public Transaction update(Transaction entity) {
+        List<Placement> placements = findStoredPlacements(entity.getTransId());
+        Transaction updated = super.update(entity);
+        publish(Kind.UPDATED, updated, placements);
+        return updated;
+    }
+
+    @Override
+    public void remove(Transaction entity) {
+        List<Placement> placements = findStoredPlacements(entity.getTransId());
+        super.remove(entity);
+        publish(Kind.REMOVED, entity, placements);
     }
 
     public List<Transaction> findByCategory(Category category){
@@ -56,5 +88,87 @@ public class TransactionDao extends BaseDao<Transaction>{
         return query.getResultList();
     }
 
+    public List<ExpenseEntry> findExpensesBetween(Long afterId, Long upToId, int limit) {
+        TypedQuery<ExpenseEntry> query = em.createQuery("SELECT new cz.cvut.fel.pm2.budgettracker.repository.ExpenseEntry("
+                + "t.transId, t.wallet.walletId, c.name, t.money, t.date) FROM Transaction t LEFT JOIN t.category c "
+                + "WHERE t.transId > :afterId AND t.transId <= :upToId AND t.typeTransaction = :type "
+                + "ORDER BY t.transId", ExpenseEntry.class);
+        query.setParameter("afterId", afterId);
+        query.setParameter("upToId", upToId);
+        query.setParameter("type", TypeTransaction.EXPENSE);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    public long findMaxTransactionId() {
+        Long maxId = em.createQuery("SELECT MAX(t.transId) FROM Transaction t", Long.class).getSingleResult();
+        return maxId == null ? 0 : maxId;
+    }
+
+    public LocalDateTime findFirstTransactionDate(Long walletId) {
+        TypedQuery<LocalDateTime> query = em.createQuery("SELECT MIN(t.date) FROM Transaction t "
+                + "WHERE t.wallet.walletId = :walletId", LocalDateTime.class);
+        query.setParameter("walletId", walletId);
+        return query.getSingleResult();
+    }
+
+    /**
+     * Sums the transactions of the wallet within the interval per type and category.
+     * @param walletId the id of the wallet.
+     * @param startDate the start of the interval, inclusive.
+     * @param endDate the end of the interval, exclusive.
+     * @param type the type of the included transactions, or null for all types.
+     * @param category the name of the category of the included transactions, or null for all categories.
+     * @return rows of the type, the category name, the number of transactions and their sum.
+     */
+    public List<Object[]> summarizeWithinInterval(Long walletId, LocalDateTime startDate, LocalDateTime endDate,
+                                                  TypeTransaction type, String category) {
+        StringBuilder jpql = new StringBuilder("SELECT t.typeTransaction, c.name, COUNT(t), SUM(t.money) "
+                + "FROM Transaction t LEFT JOIN t.category c WHERE t.wallet.walletId = :walletId "
+                + "AND t.date >= :startDate AND t.date < :endDate");
+        if (type != null) {
+            jpql.append(" AND t.typeTransaction = :type");
+        }
+        if (category != null) {
+            jpql.append(" AND c.name = :category");
+        }
+        jpql.append(" GROUP BY t.typeTransaction, c.name");
+        TypedQuery<Object[]> query = em.createQuery(jpql.toString(), Object[].class);
+        query.setParameter("walletId", walletId);
+        query.setParameter("startDate", startDate);
+        query.setParameter("endDate", endDate);
+        if (type != null) {
+            query.setParameter("type", type);
+        }
+        if (category != null) {
+            query.setParameter("category", category);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Finds the wallet and date of the transaction as it is stored in the database, i.e. before
+     * the pending changes of the entity are flushed.
+     */
+    private List<Placement> findStoredPlacements(Long transId) {
+        List<Placement> placements = new ArrayList<>();
+        if (transId == null) {
+            return placements;
+        }
+        TypedQuery<Object[]> query = em.createQuery("SELECT t.wallet.walletId, t.date FROM Transaction t "
+                + "WHERE t.transId = :transId", Object[].class);
+        query.setParameter("transId", transId);
+        query.setFlushMode(FlushModeType.COMMIT);
+        query.getResultList().forEach(row -> placements.add(new Placement((Long) row[0], (LocalDateTime) row[1])));
+        return placements;
+    }
 
+    private void publish(Kind kind, Transaction transaction, List<Placement> placements) {
+        Placement current = new Placement(transaction.getWallet() == null ? null : transaction.getWallet().getWalletId(),
+                transaction.getDate());
+        if (!placements.contains(current)) {
+            placements.add(current);
+        }
+        eventPublisher.publishEvent(new TransactionWrittenEvent(kind, transaction, placements));
+    }
 }
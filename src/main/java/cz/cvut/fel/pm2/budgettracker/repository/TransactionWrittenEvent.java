@@ -0,0 +1,39 @@
+package cz.cvut.fel.pm2.budgettracker.repository;
+
+import cz.cvut.fel.pm2.budgettracker.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Published by {@link TransactionDao} whenever a transaction is persisted, updated or removed, so the
+ * components derived from the transactions can react without the DAO depending on them. The event is
+ * published inside the writing database transaction.
+ * @param kind the kind of the write.
+ * @param transaction the written transaction.
+ * @param placements the wallets and dates the write touched, i.e. the stored placement before an update
+ *                   or removal and the placement after the write.
+ */
+public record TransactionWrittenEvent(Kind kind, Transaction transaction, List<Placement> placements) {
+
+    public TransactionWrittenEvent {
+        Objects.requireNonNull(kind);
+        Objects.requireNonNull(transaction);
+        placements = List.copyOf(placements);
+    }
+
+    public enum Kind {
+        PERSISTED,
+        UPDATED,
+        REMOVED
+    }
+
+    /**
+     * The wallet and date of a transaction.
+     * @param walletId the id of the wallet.
+     * @param date the date of the transaction.
+     */
+    public record Placement(Long walletId, LocalDateTime date) {
+    }
+}
@@ -0,0 +1,179 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compact streaming statistics of the expenses of one category within one wallet.
+ * Every update runs in constant time, so the statistics never require a rescan of the history.
+ * The monthly figures do not depend on the order the expenses arrive in: every expense is weighted by the age
+ * of its month relative to the latest month seen, so a back-dated expense or history replayed after newer
+ * expenses ends up exactly where it would have in date order.
+ */
+final class CategorySpendingStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2L;
+
+    private static final int DAYS = 31;
+
+    // Number of the latest months whose spend is kept exactly, the month in progress is one of them.
+    private static final int RECENT_MONTHS = 3;
+
+    // Number of expenses folded into the statistics.
+    private long count;
+
+    // Exponentially weighted mean and variance of a single expense.
+    private double mean;
+    private double variance;
+
+    // The earliest and the latest month with an expense, the decayed figures below are relative to the latest.
+    private YearMonth firstMonth;
+    private YearMonth latestMonth;
+
+    // Exact spend of the recent months.
+    private final TreeMap<YearMonth, Double> recentMonths = new TreeMap<>();
+
+    // Spend of the older months, each decayed by the number of months it lies before the latest month.
+    private double olderSpend;
+
+    // Decayed spend per day of month (index 0 is the 1st) and its total.
+    private final double[] dayOfMonthProfile = new double[DAYS];
+    private double profileTotal;
+
+    /**
+     * Computes the z-score of the given amount against the current statistics without updating them.
+     * @param amount the expense amount.
+     * @param minSamples the number of expenses required before a score is produced.
+     * @return the z-score, or 0 if there is not enough history yet.
+     */
+    synchronized double zScore(double amount, long minSamples) {
+        if (count < minSamples) {
+            return 0;
+        }
+        double deviation = Math.sqrt(variance);
+        if (deviation == 0) {
+            if (amount == mean) {
+                return 0;
+            }
+            return amount > mean ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        }
+        return (amount - mean) / deviation;
+    }
+
+    /**
+     * Folds a single expense into the statistics.
+     * @param amount the expense amount.
+     * @param date the day the expense happened.
+     * @param alpha the smoothing factor of the exponential averages.
+     */
+    synchronized void update(double amount, LocalDate date, double alpha) {
+        if (count == 0) {
+            mean = amount;
+            variance = 0;
+        } else {
+            double diff = amount - mean;
+            double increment = alpha * diff;
+            mean += increment;
+            variance = (1 - alpha) * (variance + diff * increment);
+        }
+        count++;
+
+        YearMonth month = YearMonth.from(date);
+        if (latestMonth == null) {
+            firstMonth = month;
+            latestMonth = month;
+        } else if (month.isAfter(latestMonth)) {
+            advanceTo(month, alpha);
+        } else if (month.isBefore(firstMonth)) {
+            firstMonth = month;
+        }
+        long age = monthsBetween(month, latestMonth);
+        if (age < RECENT_MONTHS) {
+            recentMonths.merge(month, amount, Double::sum);
+        } else {
+            olderSpend += amount * decay(alpha, age);
+        }
+        double weighted = amount * decay(alpha, age);
+        dayOfMonthProfile[date.getDayOfMonth() - 1] += weighted;
+        profileTotal += weighted;
+    }
+
+    /**
+     * Projects the spend of the given month at its end.
+     * @param today the day the projection is made on.
+     * @param alpha the smoothing factor of the exponential averages.
+     * @return the projected spend of the month containing {@code today}.
+     */
+    synchronized double projectMonthEnd(LocalDate today, double alpha) {
+        YearMonth month = YearMonth.from(today);
+        double spent = recentMonths.getOrDefault(month, 0.0);
+        double typical = typicalMonthlySpend(month, alpha);
+        if (typical <= 0 || profileTotal <= 0) {
+            return spent * month.lengthOfMonth() / today.getDayOfMonth();
+        }
+        double spentShare = 0;
+        for (int day = 0; day < today.getDayOfMonth(); day++) {
+            spentShare += dayOfMonthProfile[day];
+        }
+        double remainingShare = Math.max(0, 1 - spentShare / profileTotal);
+        return spent + typical * remainingShare;
+    }
+
+    /**
+     * Computes the exponentially weighted average spend of the months completed before the given month, months
+     * without any expense counting as zero spend.
+     * @param month the month in progress.
+     * @param alpha the smoothing factor of the exponential averages.
+     * @return the spend of a typical completed month, or 0 if no month has been completed yet.
+     */
+    synchronized double typicalMonthlySpend(YearMonth month, double alpha) {
+        YearMonth lastCompleted = month.minusMonths(1);
+        if (firstMonth == null || lastCompleted.isBefore(firstMonth)) {
+            return 0;
+        }
+        double weighted = olderSpend;
+        for (Map.Entry<YearMonth, Double> recent : recentMonths.headMap(month).entrySet()) {
+            weighted += recent.getValue() * decay(alpha, monthsBetween(recent.getKey(), latestMonth));
+        }
+        // Moves the weights from the latest month with an expense to the last completed month.
+        weighted *= Math.pow(1 - alpha, monthsBetween(latestMonth, lastCompleted));
+        long months = monthsBetween(firstMonth, lastCompleted) + 1;
+        return weighted * alpha / (1 - decay(alpha, months));
+    }
+
+    synchronized double getMean() {
+        return mean;
+    }
+
+    private void advanceTo(YearMonth month, double alpha) {
+        double factor = decay(alpha, monthsBetween(latestMonth, month));
+        olderSpend *= factor;
+        for (int day = 0; day < DAYS; day++) {
+            dayOfMonthProfile[day] *= factor;
+        }
+        profileTotal *= factor;
+        latestMonth = month;
+        Iterator<Map.Entry<YearMonth, Double>> expired = recentMonths
+                .headMap(month.minusMonths(RECENT_MONTHS - 1)).entrySet().iterator();
+        while (expired.hasNext()) {
+            Map.Entry<YearMonth, Double> older = expired.next();
+            olderSpend += older.getValue() * decay(alpha, monthsBetween(older.getKey(), month));
+            expired.remove();
+        }
+    }
+
+    private static double decay(double alpha, long months) {
+        return Math.pow(1 - alpha, months);
+    }
+
+    private static long monthsBetween(YearMonth from, YearMonth to) {
+        return ChronoUnit.MONTHS.between(from, to);
+    }
+}
@@ -0,0 +1,220 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionWrittenEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache of interval reports bounded by the total weight of the cached summaries.
+ * A transaction write only invalidates the reports of its wallet whose range covers the transaction date.
+ * Every invalidation also bumps the generation of the wallet, so a report computed concurrently with the
+ * write is returned to its caller but never stored, and a stale report is therefore never served.
+ * While a write to a wallet has not completed yet, no report of the wallet is stored either, because a report
+ * computed by the writing transaction itself sees the uncommitted write.
+ */
+@Component
+public class IntervalReportCache {
+
+    private final long maxWeight;
+
+    // Guarded by this.
+    private final LinkedHashMap<IntervalReportKey, IntervalSummary> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<IntervalReportKey>> keysByWallet = new HashMap<>();
+    private long weight;
+
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // Number of writes per wallet id whose database transaction has not completed yet.
+    private final Map<Long, Integer> pendingWrites = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong invalidatedEntries = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public IntervalReportCache(@Value("${budgettracker.reports.cache.max-weight:10000}") long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Maximal weight must be positive, got " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the cached report for the key, computing and caching it on a miss.
+     * @param key the report to return.
+     * @param loader computes the report from the database.
+     * @return the report.
+     */
+    public IntervalSummary get(IntervalReportKey key, Supplier<IntervalSummary> loader) {
+        Objects.requireNonNull(key);
+        long generation = generation(key.walletId()).get();
+        synchronized (this) {
+            IntervalSummary cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        IntervalSummary summary = loader.get();
+        synchronized (this) {
+            // A write to the wallet since the computation started may not be reflected in the summary, and
+            // a pending write may be reflected although it can still roll back.
+            if (generation(key.walletId()).get() == generation && !hasPendingWrites(key.walletId())) {
+                put(key, summary);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Drops the reports the write may change as soon as it is flushed, so a report requested later within
+     * the writing transaction is not served from the cache.
+     * @param event the write of a transaction.
+     */
+    @EventListener
+    @Order(0)
+    public void onTransactionWritten(TransactionWrittenEvent event) {
+        walletsOf(event).forEach(walletId -> pendingWrites.merge(walletId, 1, Integer::sum));
+        event.placements().forEach(placement -> invalidate(placement.walletId(), placement.date()));
+    }
+
+    /**
+     * Drops the reports the write may change again once its database transaction completes, because a report
+     * computed by another transaction in between may have been stored before the write became visible.
+     * @param event the write of a transaction.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    @Order(1)
+    public void afterTransactionWritten(TransactionWrittenEvent event) {
+        // Every write passes here exactly once, so this is where it is counted.
+        invalidations.incrementAndGet();
+        event.placements().forEach(placement -> invalidate(placement.walletId(), placement.date()));
+        walletsOf(event).forEach(walletId -> pendingWrites.computeIfPresent(walletId,
+                (id, pending) -> pending == 1 ? null : pending - 1));
+    }
+
+    /**
+     * Drops all cached reports.
+     */
+    public synchronized void clear() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        entries.clear();
+        keysByWallet.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return the current statistics of the cache.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits.get(), misses.get(), invalidations.get(), invalidatedEntries.get(), evictions.get(),
+                entries.size(), weight);
+    }
+
+    /**
+     * Drops the reports a transaction of the given wallet made at the given date may change.
+     * @param walletId the id of the wallet of the written transaction.
+     * @param date the date of the written transaction.
+     */
+    private void invalidate(Long walletId, LocalDateTime date) {
+        if (walletId == null || date == null) {
+            return;
+        }
+        synchronized (this) {
+            generation(walletId).incrementAndGet();
+            Set<IntervalReportKey> keys = keysByWallet.get(walletId);
+            if (keys == null) {
+                return;
+            }
+            List<IntervalReportKey> stale = keys.stream().filter(key -> key.covers(date)).toList();
+            stale.forEach(this::remove);
+            invalidatedEntries.addAndGet(stale.size());
+        }
+    }
+
+    private void put(IntervalReportKey key, IntervalSummary summary) {
+        if (entries.containsKey(key)) {
+            remove(key);
+        }
+        entries.put(key, summary);
+        keysByWallet.computeIfAbsent(key.walletId(), id -> new HashSet<>()).add(key);
+        weight += weightOf(summary);
+        Iterator<Map.Entry<IntervalReportKey, IntervalSummary>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Map.Entry<IntervalReportKey, IntervalSummary> evicted = eldest.next();
+            eldest.remove();
+            forget(evicted.getKey(), evicted.getValue());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(IntervalReportKey key) {
+        forget(key, entries.remove(key));
+    }
+
+    private void forget(IntervalReportKey key, IntervalSummary summary) {
+        if (summary != null) {
+            weight -= weightOf(summary);
+        }
+        Set<IntervalReportKey> keys = keysByWallet.get(key.walletId());
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByWallet.remove(key.walletId());
+        }
+    }
+
+    private boolean hasPendingWrites(Long walletId) {
+        return pendingWrites.containsKey(walletId);
+    }
+
+    private static Set<Long> walletsOf(TransactionWrittenEvent event) {
+        Set<Long> walletIds = new HashSet<>();
+        event.placements().forEach(placement -> {
+            if (placement.walletId() != null) {
+                walletIds.add(placement.walletId());
+            }
+        });
+        return walletIds;
+    }
+
+    private AtomicLong generation(Long walletId) {
+        return generations.computeIfAbsent(walletId, id -> new AtomicLong());
+    }
+
+    private static long weightOf(IntervalSummary summary) {
+        return 1L + summary.expensesByCategory().size();
+    }
+
+    /**
+     * Statistics of the cache since the application started.
+     * @param hits the number of reports served from the cache.
+     * @param misses the number of reports computed from the database.
+     * @param invalidations the number of transaction writes that invalidated reports.
+     * @param invalidatedEntries the number of reports dropped because of transaction writes.
+     * @param evictions the number of reports dropped to stay within the maximal weight.
+     * @param size the number of cached reports.
+     * @param weight the total weight of the cached reports.
+     */
+    public record Stats(long hits, long misses, long invalidations, long invalidatedEntries, long evictions,
+                        int size, long weight) {
+
+        /**
+         * @return the share of reports served from the cache, or 0 if no report has been requested yet.
+         */
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import cz.cvut.fel.pm2.budgettracker.model.TypeTransaction;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Identifies an interval report: the wallet, the range of whole days and the optional filters.
+ * @param walletId the id of the wallet.
+ * @param from the first day of the range.
+ * @param to the last day of the range, inclusive.
+ * @param type the type of the included transactions, or null for all types.
+ * @param category the name of the category of the included transactions, or null for all categories.
+ */
+public record IntervalReportKey(Long walletId, LocalDate from, LocalDate to, TypeTransaction type, String category) {
+
+    public IntervalReportKey {
+        Objects.requireNonNull(walletId);
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Interval ends (" + to + ") before it starts (" + from + ")");
+        }
+    }
+
+    /**
+     * @param date the date of a transaction.
+     * @return true if a transaction made at {@code date} falls into the range of this report.
+     */
+    public boolean covers(LocalDateTime date) {
+        LocalDate day = date.toLocalDate();
+        return !day.isBefore(from) && !day.isAfter(to);
+    }
+}
@@ -0,0 +1,90 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import cz.cvut.fel.pm2.budgettracker.model.TypeTransaction;
+import cz.cvut.fel.pm2.budgettracker.model.Wallet;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionDao;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes summaries of the transactions of a wallet within a range of days. The summaries are served from
+ * {@link IntervalReportCache}, which is invalidated by every transaction write of {@link TransactionDao}.
+ */
+@Service
+public class IntervalReportService {
+
+    // Key used for expenses without a category.
+    private static final String NO_CATEGORY = "";
+
+    private final TransactionDao transactionDao;
+    private final IntervalReportCache cache;
+
+    public IntervalReportService(TransactionDao transactionDao, IntervalReportCache cache) {
+        this.transactionDao = transactionDao;
+        this.cache = cache;
+    }
+
+    /**
+     * @param key the wallet, range and filters of the report.
+     * @return the summary of the matching transactions.
+     */
+    public IntervalSummary summarize(IntervalReportKey key) {
+        Objects.requireNonNull(key);
+        return cache.get(key, () -> compute(key));
+    }
+
+    /**
+     * @param wallet the wallet to summarize.
+     * @param today the day the report is made on.
+     * @return the summary of all transactions of the wallet from the first day of the month up to {@code today}.
+     */
+    public IntervalSummary currentMonth(Wallet wallet, LocalDate today) {
+        return summarize(new IntervalReportKey(wallet.getWalletId(), today.withDayOfMonth(1), today, null, null));
+    }
+
+    /**
+     * @param wallet the wallet to summarize.
+     * @param days the number of days, including {@code today}.
+     * @param today the day the report is made on.
+     * @return the summary of all transactions of the wallet within the last {@code days} days.
+     */
+    public IntervalSummary lastDays(Wallet wallet, int days, LocalDate today) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Number of days must be positive, got " + days);
+        }
+        return summarize(new IntervalReportKey(wallet.getWalletId(), today.minusDays(days - 1L), today, null, null));
+    }
+
+    /**
+     * @return the hit ratio and invalidation statistics of the report cache.
+     */
+    public IntervalReportCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    private IntervalSummary compute(IntervalReportKey key) {
+        long count = 0;
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expense = BigDecimal.ZERO;
+        Map<String, BigDecimal> expensesByCategory = new HashMap<>();
+        for (Object[] row : transactionDao.summarizeWithinInterval(key.walletId(), key.from().atStartOfDay(),
+                key.to().plusDays(1).atStartOfDay(), key.type(), key.category())) {
+            TypeTransaction type = (TypeTransaction) row[0];
+            String category = row[1] == null ? NO_CATEGORY : (String) row[1];
+            count += (Long) row[2];
+            BigDecimal sum = (BigDecimal) row[3];
+            if (type == TypeTransaction.INCOME) {
+                income = income.add(sum);
+            } else if (type == TypeTransaction.EXPENSE) {
+                expense = expense.add(sum);
+                expensesByCategory.merge(category, sum, BigDecimal::add);
+            }
+        }
+        return new IntervalSummary(key, count, income, expense, expensesByCategory);
+    }
+}
@@ -0,0 +1,20 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Aggregated transactions of a wallet within an interval.
+ * @param key the wallet, range and filters the summary was computed for.
+ * @param count the number of matching transactions.
+ * @param income the sum of matching incomes.
+ * @param expense the sum of matching expenses.
+ * @param expensesByCategory the sum of matching expenses per category name.
+ */
+public record IntervalSummary(IntervalReportKey key, long count, BigDecimal income, BigDecimal expense,
+                              Map<String, BigDecimal> expensesByCategory) {
+
+    public IntervalSummary {
+        expensesByCategory = Map.copyOf(expensesByCategory);
+    }
+}
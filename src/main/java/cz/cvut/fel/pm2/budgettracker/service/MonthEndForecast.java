@@ -0,0 +1,16 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * Projected expenses of a wallet at the end of a month compared to its budget limit.
+ * @param walletId the id of the wallet.
+ * @param month the month the projection is made for.
+ * @param projectedSpend the projected sum of expenses at the end of the month.
+ * @param budgetLimit the budget limit of the wallet, or null if it has none.
+ * @param overBudget true if the projected spend exceeds the budget limit.
+ */
+public record MonthEndForecast(Long walletId, YearMonth month, BigDecimal projectedSpend, BigDecimal budgetLimit,
+                               boolean overBudget) {
+}
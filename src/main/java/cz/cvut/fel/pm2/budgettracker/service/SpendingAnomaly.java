@@ -0,0 +1,16 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of scoring an expense against the spending history of its wallet and category.
+ * @param walletId the id of the wallet the expense belongs to.
+ * @param category the name of the category of the expense.
+ * @param amount the amount of the expense.
+ * @param typicalAmount the exponentially weighted mean expense of the category before this one.
+ * @param zScore the number of standard deviations the expense lies from the typical amount.
+ * @param anomalous true if the z-score exceeds the configured threshold.
+ */
+public record SpendingAnomaly(Long walletId, String category, BigDecimal amount, BigDecimal typicalAmount,
+                              double zScore, boolean anomalous) {
+}
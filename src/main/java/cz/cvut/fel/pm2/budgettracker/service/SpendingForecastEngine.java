@@ -0,0 +1,403 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import cz.cvut.fel.pm2.budgettracker.model.Transaction;
+import cz.cvut.fel.pm2.budgettracker.model.TypeTransaction;
+import cz.cvut.fel.pm2.budgettracker.model.Wallet;
+import cz.cvut.fel.pm2.budgettracker.repository.ExpenseEntry;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionWrittenEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps streaming statistics of the expenses per wallet and category. The statistics are updated in constant
+ * time as each transaction is persisted, new expenses are scored against them immediately and the month-end
+ * spend of a wallet is forecast from them without touching the database.
+ * The statistics are checkpointed to a file, so a restart only needs to replay the transactions persisted
+ * after the last checkpoint. Transaction ids do not commit in id order (pooled sequences, concurrent writers),
+ * so the replay starts {@code replay-window} ids below the watermark of the checkpoint and every expense within
+ * the window is recognised by its id, which counts each expense once however often it is delivered.
+ * With several instances each instance records only its own writes as they commit; the writes of the other
+ * instances reach its statistics through the replay on its next start.
+ * Until {@link SpendingForecastWarmUp} has replayed the history the statistics are partial, so forecasts and
+ * scores made in the meantime only cover the expenses seen so far, and no checkpoint is written.
+ * Updates and removals of transactions are not reflected: the exponential averages cannot take an expense
+ * back out, so an edited or deleted expense keeps its original contribution until its weight decays.
+ */
+@Service
+public class SpendingForecastEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpendingForecastEngine.class);
+
+    // Key used for expenses without a category.
+    private static final String NO_CATEGORY = "";
+
+    private final double alpha;
+    private final double anomalyThreshold;
+    private final long minSamples;
+    private final Path checkpointFile;
+
+    // Statistics per wallet id and category name.
+    private final Map<Long, Map<String, CategorySpendingStats>> stats = new ConcurrentHashMap<>();
+
+    // The highest id of a transaction folded into the statistics.
+    private final AtomicLong lastTransactionId = new AtomicLong();
+
+    // The watermark of the restored checkpoint, or 0 if none was restored. Guarded by the write lock.
+    private long checkpointTransactionId;
+
+    // Number of ids below the watermark that may still commit after it, and are therefore replayed again.
+    private final long replayWindow;
+
+    // Ids of the expenses recorded within the window below the watermark.
+    private final NavigableSet<Long> recentIds = new ConcurrentSkipListSet<>();
+    private final AtomicLong recordedSincePrune = new AtomicLong();
+
+    // Expenses above this id may still be replayed, so the window does not move above it before the replay
+    // has passed them.
+    private volatile long replayFloor;
+
+    private volatile boolean warmedUp;
+
+    // Recording takes the read lock, so expenses are folded in concurrently, while a checkpoint takes the write
+    // lock to copy the statistics together with the watermark they correspond to.
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    public SpendingForecastEngine(@Value("${budgettracker.forecast.alpha:0.1}") double alpha,
+                                  @Value("${budgettracker.forecast.anomaly-threshold:3.0}") double anomalyThreshold,
+                                  @Value("${budgettracker.forecast.min-samples:5}") long minSamples,
+                                  @Value("${budgettracker.forecast.checkpoint-file:}") String checkpointFile,
+                                  @Value("${budgettracker.forecast.replay-window:10000}") long replayWindow) {
+        if (alpha <= 0 || alpha >= 1) {
+            throw new IllegalArgumentException("Smoothing factor must lie in (0, 1), got " + alpha);
+        }
+        if (replayWindow < 0) {
+            throw new IllegalArgumentException("Replay window must not be negative, got " + replayWindow);
+        }
+        this.alpha = alpha;
+        this.anomalyThreshold = anomalyThreshold;
+        this.minSamples = minSamples;
+        this.checkpointFile = checkpointFile.isBlank() ? null : Path.of(checkpointFile);
+        this.replayWindow = replayWindow;
+    }
+
+    /**
+     * Scores the given transaction against the statistics without updating them.
+     * @param transaction the transaction to score.
+     * @return the score, or empty if the transaction is not an expense of a wallet.
+     */
+    public Optional<SpendingAnomaly> score(Transaction transaction) {
+        Objects.requireNonNull(transaction);
+        if (!isTrackedExpense(transaction)) {
+            return Optional.empty();
+        }
+        Long walletId = transaction.getWallet().getWalletId();
+        String category = categoryOf(transaction);
+        CategorySpendingStats categoryStats = stats.getOrDefault(walletId, Map.of()).get(category);
+        if (categoryStats == null) {
+            return Optional.of(toAnomaly(walletId, category, transaction.getMoney(), transaction.getMoney(), 0));
+        }
+        return Optional.of(score(walletId, category, transaction.getMoney(), categoryStats));
+    }
+
+    /**
+     * Scores the given transaction and folds it into the statistics.
+     * @param transaction the persisted transaction.
+     * @return the score computed before the update, or empty if the transaction is not an expense of a wallet.
+     */
+    public Optional<SpendingAnomaly> record(Transaction transaction) {
+        Objects.requireNonNull(transaction);
+        if (!isTrackedExpense(transaction)) {
+            checkpointLock.readLock().lock();
+            try {
+                markSeen(transaction.getTransId());
+            } finally {
+                checkpointLock.readLock().unlock();
+            }
+            return Optional.empty();
+        }
+        return Optional.of(record(new ExpenseEntry(transaction.getTransId(), transaction.getWallet().getWalletId(),
+                categoryOf(transaction), transaction.getMoney(), transaction.getDate())));
+    }
+
+    /**
+     * Folds a newly persisted transaction into the statistics once its database transaction commits,
+     * so an expense rolled back is never counted. An expense the replay has already folded in is recognised by
+     * its id.
+     * @param event the write of the transaction.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionWritten(TransactionWrittenEvent event) {
+        if (event.kind() == TransactionWrittenEvent.Kind.PERSISTED) {
+            record(event.transaction());
+        }
+    }
+
+    /**
+     * Scores the given expense and folds it into the statistics, unless it has already been folded in.
+     * @param expense the persisted expense.
+     * @return the score computed before the update.
+     */
+    public SpendingAnomaly record(ExpenseEntry expense) {
+        Objects.requireNonNull(expense);
+        String category = expense.category() == null ? NO_CATEGORY : expense.category();
+        SpendingAnomaly anomaly;
+        checkpointLock.readLock().lock();
+        try {
+            CategorySpendingStats categoryStats = stats
+                    .computeIfAbsent(expense.walletId(), id -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(category, name -> new CategorySpendingStats());
+            anomaly = score(expense.walletId(), category, expense.money(), categoryStats);
+            if (!firstSighting(expense.transId())) {
+                return anomaly;
+            }
+            categoryStats.update(expense.money().doubleValue(), expense.date().toLocalDate(), alpha);
+            // The watermark only moves once the expense is part of the statistics.
+            markSeen(expense.transId());
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        if (anomaly.anomalous()) {
+            LOG.info("Unusual expense {} in category '{}' of wallet {} (z-score {})",
+                    expense.money(), category, expense.walletId(), anomaly.zScore());
+        }
+        return anomaly;
+    }
+
+    /**
+     * Folds the given expenses into the statistics in bulk, in any order.
+     * @param expenses the already persisted expenses.
+     */
+    public void warmUp(Collection<ExpenseEntry> expenses) {
+        Objects.requireNonNull(expenses);
+        expenses.forEach(this::record);
+    }
+
+    /**
+     * Forecasts the sum of expenses of the given wallet at the end of the month containing {@code today}.
+     * @param wallet the wallet to forecast.
+     * @param today the day the forecast is made on.
+     * @return the forecast compared to the budget limit of the wallet.
+     */
+    public MonthEndForecast forecastMonthEnd(Wallet wallet, LocalDate today) {
+        Objects.requireNonNull(wallet);
+        Objects.requireNonNull(today);
+        double projected = stats.getOrDefault(wallet.getWalletId(), Map.of()).values().stream()
+                .mapToDouble(categoryStats -> categoryStats.projectMonthEnd(today, alpha))
+                .sum();
+        BigDecimal projectedSpend = BigDecimal.valueOf(projected).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal budgetLimit = wallet.getBudgetLimit();
+        boolean overBudget = budgetLimit != null && projectedSpend.compareTo(budgetLimit) > 0;
+        return new MonthEndForecast(wallet.getWalletId(), YearMonth.from(today), projectedSpend, budgetLimit,
+                overBudget);
+    }
+
+    /**
+     * @return the highest id of a transaction folded into the statistics, or 0 if there is none.
+     */
+    public long getLastTransactionId() {
+        return lastTransactionId.get();
+    }
+
+    /**
+     * Starts the replay of the history up to the given transaction. The replay starts the replay window below
+     * the watermark of the restored checkpoint, so expenses that committed after the checkpoint with a lower id
+     * than its watermark are not lost. Expenses persisted meanwhile are recorded as they commit, and the replay
+     * skips them by their id.
+     * A restored checkpoint covering transactions the database does not contain, e.g. because the database was
+     * recreated after the checkpoint had been written, is dropped and the statistics start from scratch.
+     * @param maxTransactionId the highest transaction id in the database.
+     * @return the id after which the history has to be replayed.
+     */
+    public long beginWarmUp(long maxTransactionId) {
+        checkpointLock.writeLock().lock();
+        try {
+            if (checkpointTransactionId > maxTransactionId) {
+                LOG.warn("Discarding spending statistics checkpoint {} covering transaction {}, the database only "
+                        + "contains transactions up to {}", checkpointFile, checkpointTransactionId, maxTransactionId);
+                stats.clear();
+                recentIds.clear();
+                lastTransactionId.set(0);
+                checkpointTransactionId = 0;
+            }
+            replayFloor = Math.max(0, checkpointTransactionId - replayWindow);
+            return replayFloor;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the history up to the given transaction as replayed.
+     * @param transId the highest id of the expenses replayed so far.
+     */
+    public void replayedUpTo(long transId) {
+        replayFloor = Math.max(replayFloor, transId);
+    }
+
+    /**
+     * Marks the history as replayed, after which the statistics are complete and checkpoints are written.
+     */
+    public void finishWarmUp() {
+        replayFloor = Long.MAX_VALUE;
+        warmedUp = true;
+    }
+
+    /**
+     * @return true once the history has been replayed into the statistics.
+     */
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    /**
+     * Writes the statistics to the checkpoint file, replacing the previous checkpoint atomically.
+     */
+    @Scheduled(fixedDelayString = "${budgettracker.forecast.checkpoint-interval-ms:300000}",
+            initialDelayString = "${budgettracker.forecast.checkpoint-interval-ms:300000}")
+    @PreDestroy
+    public void checkpoint() {
+        // Before the replay finishes the watermark may run ahead of the replayed expenses.
+        if (checkpointFile == null || !warmedUp) {
+            return;
+        }
+        try {
+            byte[] snapshot = snapshot();
+            Path parent = checkpointFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, checkpointFile.getFileName().toString(), ".tmp");
+            Files.write(temp, snapshot);
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOG.warn("Failed to checkpoint spending statistics to {}", checkpointFile, ex);
+        }
+    }
+
+    /**
+     * Restores the statistics from the checkpoint file, if there is one.
+     */
+    @PostConstruct
+    void restore() {
+        if (checkpointFile == null || !Files.isRegularFile(checkpointFile)) {
+            return;
+        }
+        checkpointLock.writeLock().lock();
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            Checkpoint checkpoint = (Checkpoint) in.readObject();
+            stats.clear();
+            stats.putAll(checkpoint.stats());
+            recentIds.clear();
+            recentIds.addAll(checkpoint.recentIds());
+            lastTransactionId.set(checkpoint.lastTransactionId());
+            checkpointTransactionId = checkpoint.lastTransactionId();
+            replayFloor = Math.max(0, checkpoint.lastTransactionId() - replayWindow);
+        } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+            LOG.warn("Ignoring unreadable spending statistics checkpoint {}", checkpointFile, ex);
+            stats.clear();
+            recentIds.clear();
+            lastTransactionId.set(0);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Serializes the statistics together with the watermark and the ids recorded within the window below it
+     * while no expense is being recorded, so the checkpoint matches the ids exactly.
+     */
+    private byte[] snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        checkpointLock.writeLock().lock();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            recentIds.headSet(dedupFloor(), true).clear();
+            out.writeObject(new Checkpoint(lastTransactionId.get(), stats, new TreeSet<>(recentIds)));
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        return bytes.toByteArray();
+    }
+
+    private SpendingAnomaly score(Long walletId, String category, BigDecimal amount,
+                                  CategorySpendingStats categoryStats) {
+        double zScore = categoryStats.zScore(amount.doubleValue(), minSamples);
+        BigDecimal typical = BigDecimal.valueOf(categoryStats.getMean()).setScale(2, RoundingMode.HALF_UP);
+        return toAnomaly(walletId, category, amount, typical, zScore);
+    }
+
+    private SpendingAnomaly toAnomaly(Long walletId, String category, BigDecimal amount, BigDecimal typical,
+                                      double zScore) {
+        return new SpendingAnomaly(walletId, category, amount, typical, zScore, zScore > anomalyThreshold);
+    }
+
+    /**
+     * Remembers the id of an expense about to be folded in.
+     * @return false if the expense has already been folded in.
+     */
+    private boolean firstSighting(Long transId) {
+        long floor = dedupFloor();
+        if (transId == null || transId <= floor) {
+            // Ids below the window are not replayed again, so they are only ever seen once.
+            return true;
+        }
+        if (!recentIds.add(transId)) {
+            return false;
+        }
+        if (recordedSincePrune.incrementAndGet() >= Math.max(replayWindow, 1)) {
+            recordedSincePrune.set(0);
+            recentIds.headSet(floor, true).clear();
+        }
+        return true;
+    }
+
+    private long dedupFloor() {
+        return Math.min(lastTransactionId.get() - replayWindow, replayFloor);
+    }
+
+    private void markSeen(Long transId) {
+        if (transId != null) {
+            lastTransactionId.accumulateAndGet(transId, Math::max);
+        }
+    }
+
+    private static boolean isTrackedExpense(Transaction transaction) {
+        return transaction.getTypeTransaction() == TypeTransaction.EXPENSE
+                && transaction.getWallet() != null
+                && transaction.getWallet().getWalletId() != null
+                && transaction.getMoney() != null
+                && transaction.getDate() != null;
+    }
+
+    private static String categoryOf(Transaction transaction) {
+        return transaction.getCategory() == null ? NO_CATEGORY : transaction.getCategory().getName();
+    }
+
+    private record Checkpoint(long lastTransactionId, Map<Long, Map<String, CategorySpendingStats>> stats,
+                              NavigableSet<Long> recentIds) implements Serializable {
+    }
+}
@@ -0,0 +1,86 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import cz.cvut.fel.pm2.budgettracker.repository.ExpenseEntry;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionDao;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings the spending statistics up to date once the application has started. Only the expenses persisted
+ * after the restored checkpoint, less the replay window, are replayed; without a checkpoint the whole history
+ * is replayed in pages.
+ * A checkpoint ahead of the database is discarded first, so it is never combined with a different history.
+ * The replay runs in the background, so it does not delay the application being ready; forecasts are partial
+ * until it finishes.
+ */
+@Component
+public class SpendingForecastWarmUp {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpendingForecastWarmUp.class);
+
+    private final TransactionDao transactionDao;
+    private final SpendingForecastEngine forecastEngine;
+    private final int pageSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("forecast-warm-up").daemon().factory());
+
+    public SpendingForecastWarmUp(TransactionDao transactionDao, SpendingForecastEngine forecastEngine,
+                                  @Value("${budgettracker.forecast.warm-up-page-size:10000}") int pageSize) {
+        this.transactionDao = transactionDao;
+        this.forecastEngine = forecastEngine;
+        this.pageSize = pageSize;
+    }
+
+    // Runs before any other listener of the event, e.g. the exit of the startup training run.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onReady() {
+        executor.execute(this::warmUp);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    void warmUp() {
+        long replayed = 0;
+        try {
+            long maxId = transactionDao.findMaxTransactionId();
+            long lastId = forecastEngine.beginWarmUp(maxId);
+            List<ExpenseEntry> page;
+            do {
+                if (Thread.currentThread().isInterrupted()) {
+                    LOG.info("Spending statistics warm-up stopped after {} expenses", replayed);
+                    return;
+                }
+                page = transactionDao.findExpensesBetween(lastId, maxId, pageSize);
+                forecastEngine.warmUp(page);
+                replayed += page.size();
+                if (!page.isEmpty()) {
+                    lastId = page.get(page.size() - 1).transId();
+                    forecastEngine.replayedUpTo(lastId);
+                }
+            } while (page.size() == pageSize);
+        } catch (RuntimeException ex) {
+            LOG.warn("Spending statistics warm-up failed after {} expenses", replayed, ex);
+            return;
+        }
+        forecastEngine.finishWarmUp();
+        LOG.info("Replayed {} expenses into the spending statistics", replayed);
+    }
+}
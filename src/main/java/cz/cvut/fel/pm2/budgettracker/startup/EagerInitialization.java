@@ -0,0 +1,24 @@
+package cz.cvut.fel.pm2.budgettracker.startup;
+
+import cz.cvut.fel.pm2.budgettracker.report.ReportJobService;
+import cz.cvut.fel.pm2.budgettracker.service.IntervalReportCache;
+import cz.cvut.fel.pm2.budgettracker.service.SpendingForecastEngine;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps some beans eager when {@code spring.main.lazy-initialization} makes all others lazy, as the
+ * {@code prod} profile does. These beans validate their configuration in their constructors, so an invalid
+ * value fails the startup instead of the first request using them, and {@link SpendingForecastEngine} has to
+ * exist for its scheduled checkpoints to run.
+ */
+@Configuration(proxyBeanMethods = false)
+public class EagerInitialization {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SpendingForecastEngine.class, IntervalReportCache.class,
+                ReportJobService.class);
+    }
+}
@@ -0,0 +1,67 @@
+package cz.cvut.fel.pm2.budgettracker.startup;
+
+import jakarta.servlet.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reports how long the application took to become ready and to serve its first request, together with
+ * the heap in use at those moments. The values are logged as {@code startup.*} key-value pairs, so the
+ * startup benchmark can pick them up from the log.
+ * With {@code budgettracker.startup.exit-on-ready} the application exits as soon as it is ready, which is
+ * used by the training run that generates the class-data-sharing archive.
+ */
+@Component
+public class StartupMetrics implements Filter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private final boolean exitOnReady;
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    public StartupMetrics(@Value("${budgettracker.startup.exit-on-ready:false}") boolean exitOnReady) {
+        this.exitOnReady = exitOnReady;
+    }
+
+    // Runs after every other listener of the event, so the exit does not cut them short.
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onReady(ApplicationReadyEvent event) {
+        report("ready");
+        if (exitOnReady) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (!firstRequestSeen.get() && firstRequestSeen.compareAndSet(false, true)) {
+                report("first-request");
+            }
+        }
+    }
+
+    private static void report(String phase) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        LOG.info("startup.{}-ms={} startup.{}-heap-used-bytes={} startup.{}-heap-committed-bytes={}",
+                phase, uptime, phase, heap.getUsed(), phase, heap.getCommitted());
+    }
+}
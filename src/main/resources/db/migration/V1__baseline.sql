@@ -0,0 +1,49 @@
+-- Schema of the entities in cz.cvut.fel.pm2.budgettracker.model, validated by Hibernate in the "prod" profile.
+-- Identifiers are generated by Hibernate from the sequences, which hand out blocks of 50 ids.
+
+CREATE SEQUENCE client_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE wallet_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE category_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE transactions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE goals_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE client (
+    client_id BIGINT       NOT NULL PRIMARY KEY,
+    email     VARCHAR(255) NOT NULL UNIQUE,
+    password  VARCHAR(255) NOT NULL,
+    username  VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE wallet (
+    wallet_id    BIGINT         NOT NULL PRIMARY KEY,
+    amount       NUMERIC(38, 2) NOT NULL,
+    budget_limit NUMERIC(38, 2) NOT NULL,
+    client       VARCHAR(255) UNIQUE REFERENCES client (email),
+    currency     VARCHAR(255) CHECK (currency IN ('EUR', 'CZK', 'USD')),
+    name         VARCHAR(255)   NOT NULL
+);
+
+CREATE TABLE category (
+    category_id BIGINT       NOT NULL PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE transactions (
+    transactions_id BIGINT         NOT NULL PRIMARY KEY,
+    description     VARCHAR(255)   NOT NULL,
+    money           NUMERIC(38, 2) NOT NULL,
+    type            VARCHAR(255) CHECK (type IN ('INCOME', 'EXPENSE')),
+    category        VARCHAR(255) REFERENCES category (name),
+    wallet          BIGINT REFERENCES wallet (wallet_id),
+    trans_date      TIMESTAMP      NOT NULL
+);
+
+-- Interval reports and the transactions of a day filter a wallet by date.
+CREATE INDEX transactions_wallet_date_idx ON transactions (wallet, trans_date);
+
+CREATE TABLE goals (
+    goals_id   BIGINT NOT NULL PRIMARY KEY,
+    goal       VARCHAR(255),
+    money_goal NUMERIC(38, 2),
+    wallet_id  BIGINT REFERENCES wallet (wallet_id)
+);
@@ -0,0 +1,173 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import cz.cvut.fel.pm2.budgettracker.model.Transaction;
+import cz.cvut.fel.pm2.budgettracker.model.Wallet;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionDao;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionWrittenEvent;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionWrittenEvent.Kind;
+import cz.cvut.fel.pm2.budgettracker.repository.TransactionWrittenEvent.Placement;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class IntervalReportCacheTest {
+
+    private static final IntervalReportKey WALLET_1_JANUARY = key(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+    private static final IntervalReportKey WALLET_1_MARCH = key(1L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+    private static final IntervalReportKey WALLET_2_JANUARY = key(2L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+    private static final IntervalReportKey WALLET_2_MARCH = key(2L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+
+    private IntervalReportCache cache;
+
+    // Number of times each report has been computed.
+    private Map<IntervalReportKey, Integer> computations;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new IntervalReportCache(1000);
+        computations = new HashMap<>();
+    }
+
+    @Test
+    public void writeInsideRangeDropsReport() {
+        load(WALLET_1_JANUARY);
+
+        write(1L, LocalDateTime.of(2024, 1, 15, 12, 0));
+        load(WALLET_1_JANUARY);
+
+        assertEquals(2, computations.get(WALLET_1_JANUARY));
+        assertEquals(1, cache.getStats().invalidations());
+        assertEquals(1, cache.getStats().invalidatedEntries());
+    }
+
+    @Test
+    public void writeOutsideRangeOrToAnotherWalletKeepsReport() {
+        load(WALLET_1_JANUARY);
+
+        write(1L, LocalDateTime.of(2024, 2, 1, 0, 0));
+        write(2L, LocalDateTime.of(2024, 1, 15, 12, 0));
+        load(WALLET_1_JANUARY);
+
+        assertEquals(1, computations.get(WALLET_1_JANUARY));
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(0, cache.getStats().invalidatedEntries());
+    }
+
+    @Test
+    public void reportComputedDuringWriteIsNotStored() {
+        cache.get(WALLET_1_JANUARY, () -> {
+            IntervalSummary summary = compute(WALLET_1_JANUARY);
+            // The write completes after the summary has been computed, but before it is stored.
+            write(1L, LocalDateTime.of(2024, 1, 15, 12, 0));
+            return summary;
+        });
+        load(WALLET_1_JANUARY);
+
+        assertEquals(2, computations.get(WALLET_1_JANUARY));
+        assertEquals(0, cache.getStats().hits());
+    }
+
+    @Test
+    public void reportComputedWhileWriteIsPendingIsNotStored() {
+        TransactionWrittenEvent event = event(1L, LocalDateTime.of(2024, 1, 15, 12, 0));
+        cache.onTransactionWritten(event);
+        load(WALLET_1_JANUARY);
+        load(WALLET_1_JANUARY);
+        cache.afterTransactionWritten(event);
+        load(WALLET_1_JANUARY);
+        load(WALLET_1_JANUARY);
+
+        assertEquals(3, computations.get(WALLET_1_JANUARY));
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    public void updateMovingTransactionDropsReportsOfOldAndNewPlacement() {
+        EntityManager em = mock(EntityManager.class);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TransactionDao dao = new TransactionDao(publisher);
+        ReflectionTestUtils.setField(dao, "em", em);
+        @SuppressWarnings("unchecked")
+        TypedQuery<Object[]> storedPlacement = mock(TypedQuery.class);
+        when(em.createQuery(anyString(), eq(Object[].class))).thenReturn(storedPlacement);
+        when(storedPlacement.getResultList())
+                .thenReturn(List.<Object[]>of(new Object[]{1L, LocalDateTime.of(2024, 1, 15, 12, 0)}));
+        Transaction transaction = transaction(10L, wallet(2L), LocalDateTime.of(2024, 3, 3, 9, 0));
+        when(em.merge(transaction)).thenReturn(transaction);
+
+        load(WALLET_1_JANUARY);
+        load(WALLET_1_MARCH);
+        load(WALLET_2_JANUARY);
+        load(WALLET_2_MARCH);
+        dao.update(transaction);
+        ArgumentCaptor<TransactionWrittenEvent> published = ArgumentCaptor.forClass(TransactionWrittenEvent.class);
+        verify(publisher).publishEvent(published.capture());
+        cache.onTransactionWritten(published.getValue());
+        cache.afterTransactionWritten(published.getValue());
+        load(WALLET_1_JANUARY);
+        load(WALLET_1_MARCH);
+        load(WALLET_2_JANUARY);
+        load(WALLET_2_MARCH);
+
+        assertEquals(Kind.UPDATED, published.getValue().kind());
+        assertEquals(2, computations.get(WALLET_1_JANUARY));
+        assertEquals(1, computations.get(WALLET_1_MARCH));
+        assertEquals(1, computations.get(WALLET_2_JANUARY));
+        assertEquals(2, computations.get(WALLET_2_MARCH));
+        assertEquals(1, cache.getStats().invalidations());
+    }
+
+    private void load(IntervalReportKey key) {
+        cache.get(key, () -> compute(key));
+    }
+
+    private IntervalSummary compute(IntervalReportKey key) {
+        computations.merge(key, 1, Integer::sum);
+        return new IntervalSummary(key, 0, BigDecimal.ZERO, BigDecimal.ZERO, Map.of());
+    }
+
+    // Delivers a committed write outside of a database transaction.
+    private void write(Long walletId, LocalDateTime date) {
+        TransactionWrittenEvent event = event(walletId, date);
+        cache.onTransactionWritten(event);
+        cache.afterTransactionWritten(event);
+    }
+
+    private static TransactionWrittenEvent event(Long walletId, LocalDateTime date) {
+        return new TransactionWrittenEvent(Kind.PERSISTED, transaction(null, wallet(walletId), date),
+                List.of(new Placement(walletId, date)));
+    }
+
+    private static Transaction transaction(Long transId, Wallet wallet, LocalDateTime date) {
+        Transaction transaction = new Transaction();
+        ReflectionTestUtils.setField(transaction, "transId", transId);
+        transaction.setWallet(wallet);
+        transaction.setDate(date);
+        return transaction;
+    }
+
+    private static Wallet wallet(Long walletId) {
+        Wallet wallet = new Wallet();
+        ReflectionTestUtils.setField(wallet, "walletId", walletId);
+        return wallet;
+    }
+
+    private static IntervalReportKey key(Long walletId, LocalDate from, LocalDate to) {
+        return new IntervalReportKey(walletId, from, to, null, null);
+    }
+}
@@ -0,0 +1,179 @@
+package cz.cvut.fel.pm2.budgettracker.service;
+
+import cz.cvut.fel.pm2.budgettracker.model.Wallet;
+import cz.cvut.fel.pm2.budgettracker.repository.ExpenseEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpendingForecastEngineTest {
+
+    private static final Wallet WALLET = wallet(1L);
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 10);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void expensesRecordedOutOfDateOrderForecastAsInDateOrder() {
+        List<ExpenseEntry> history = history();
+        SpendingForecastEngine inOrder = engine(null);
+        history.forEach(inOrder::record);
+
+        // The newest expense arrives first, as a live expense does while the history is being replayed.
+        SpendingForecastEngine liveFirst = engine(null);
+        liveFirst.record(history.get(history.size() - 1));
+        liveFirst.warmUp(history.subList(0, history.size() - 1));
+
+        List<ExpenseEntry> reversed = new ArrayList<>(history);
+        Collections.reverse(reversed);
+        SpendingForecastEngine backwards = engine(null);
+        backwards.warmUp(reversed);
+
+        BigDecimal expected = forecast(inOrder);
+        // Linear extrapolation of the June spend would give 300.00, the history must be taken into account.
+        assertNotEquals(new BigDecimal("300.00"), expected);
+        assertEquals(expected, forecast(liveFirst));
+        assertEquals(expected, forecast(backwards));
+    }
+
+    @Test
+    public void backDatedExpenseCountsInItsMonth() {
+        List<ExpenseEntry> history = history();
+        SpendingForecastEngine inOrder = engine(null);
+        history.forEach(inOrder::record);
+
+        SpendingForecastEngine backDated = engine(null);
+        ExpenseEntry january = history.get(0);
+        history.subList(1, history.size()).forEach(backDated::record);
+        backDated.record(january);
+
+        assertEquals(forecast(inOrder), forecast(backDated));
+    }
+
+    @Test
+    public void monthsWithoutExpensesCountAsZeroSpend() {
+        SpendingForecastEngine engine = engine(null);
+        engine.record(expense(1, LocalDate.of(2024, 1, 15), "100"));
+
+        // January and the empty February are completed, weighted 0.9 and 1: 100 * 0.9 / 1.9.
+        MonthEndForecast forecast = engine.forecastMonthEnd(WALLET, LocalDate.of(2024, 3, 1));
+
+        assertEquals(new BigDecimal("47.37"), forecast.projectedSpend());
+    }
+
+    @Test
+    public void checkpointRestoresStatisticsAndWatermark() {
+        Path checkpointFile = tempDir.resolve("spending-stats.ser");
+        SpendingForecastEngine engine = engine(checkpointFile);
+        engine.beginWarmUp(0);
+        history().forEach(engine::record);
+        engine.finishWarmUp();
+        engine.checkpoint();
+
+        SpendingForecastEngine restored = engine(checkpointFile);
+        restored.restore();
+
+        assertEquals(engine.getLastTransactionId(), restored.getLastTransactionId());
+        assertEquals(forecast(engine), forecast(restored));
+    }
+
+    @Test
+    public void checkpointAheadOfDatabaseIsDiscarded() {
+        Path checkpointFile = tempDir.resolve("spending-stats.ser");
+        SpendingForecastEngine engine = engine(checkpointFile);
+        engine.beginWarmUp(0);
+        history().forEach(engine::record);
+        engine.finishWarmUp();
+        engine.checkpoint();
+
+        SpendingForecastEngine restored = engine(checkpointFile);
+        restored.restore();
+        long replayFrom = restored.beginWarmUp(3);
+
+        assertEquals(0, replayFrom);
+        assertEquals(0, restored.getLastTransactionId());
+        assertEquals(new BigDecimal("0.00"), forecast(restored));
+    }
+
+    @Test
+    public void expenseDeliveredTwiceIsCountedOnce() {
+        List<ExpenseEntry> history = history();
+        SpendingForecastEngine once = engine(null);
+        once.warmUp(history);
+
+        // Every expense arrives both as it commits and through the replay.
+        SpendingForecastEngine twice = engine(null);
+        twice.beginWarmUp(history.size());
+        history.forEach(twice::record);
+        twice.warmUp(history);
+        twice.finishWarmUp();
+
+        assertEquals(forecast(once), forecast(twice));
+    }
+
+    @Test
+    public void expenseCommittedAfterCheckpointBelowWatermarkIsReplayed() {
+        List<ExpenseEntry> history = history();
+        ExpenseEntry late = history.get(9);
+        Path checkpointFile = tempDir.resolve("spending-stats.ser");
+        SpendingForecastEngine engine = engine(checkpointFile);
+        engine.beginWarmUp(0);
+        history.stream().filter(expense -> expense != late).forEach(engine::record);
+        engine.finishWarmUp();
+        engine.checkpoint();
+
+        // The expense with id 10 commits after the checkpoint at watermark 16 and the instance stops before
+        // it is recorded.
+        SpendingForecastEngine restored = engine(checkpointFile);
+        restored.restore();
+        long replayFrom = restored.beginWarmUp(history.size());
+        restored.warmUp(history.subList((int) replayFrom, history.size()));
+        restored.finishWarmUp();
+
+        SpendingForecastEngine complete = engine(null);
+        complete.warmUp(history);
+        assertEquals(6, replayFrom);
+        assertEquals(forecast(complete), forecast(restored));
+    }
+
+    private static BigDecimal forecast(SpendingForecastEngine engine) {
+        return engine.forecastMonthEnd(WALLET, TODAY).projectedSpend();
+    }
+
+    // Three expenses of 100 in each month from January to May and one expense in June, in date order.
+    private static List<ExpenseEntry> history() {
+        List<ExpenseEntry> history = new ArrayList<>();
+        long transId = 1;
+        for (int month = 1; month <= 5; month++) {
+            for (int day = 5; day <= 25; day += 10) {
+                history.add(expense(transId++, LocalDate.of(2024, month, day), "100"));
+            }
+        }
+        history.add(expense(transId, LocalDate.of(2024, 6, 3), "100"));
+        return history;
+    }
+
+    private static ExpenseEntry expense(long transId, LocalDate date, String money) {
+        return new ExpenseEntry(transId, WALLET.getWalletId(), "food", new BigDecimal(money), date.atTime(12, 0));
+    }
+
+    private static SpendingForecastEngine engine(Path checkpointFile) {
+        return new SpendingForecastEngine(0.1, 3.0, 5, checkpointFile == null ? "" : checkpointFile.toString(), 10);
+    }
+
+    private static Wallet wallet(Long walletId) {
+        Wallet wallet = new Wallet();
+        ReflectionTestUtils.setField(wallet, "walletId", walletId);
+        return wallet;
+    }
+}